@@ -0,0 +1,21 @@
+package com.kelin.countdownview;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * 测量时根据文字大小计算背景圆半径的工作，也就是原来{@code onMeasure}中的sqrt/pow运算。
+ */
+@State(Scope.Thread)
+public class MeasureBenchmark {
+
+    private int mWidth = 120;
+    private int mHeight = 64;
+
+    @Benchmark
+    public int computeRadius() {
+        mWidth = (mWidth + 1) & 0xFF;
+        return CountDownGeometry.computeRadius(mWidth, mHeight);
+    }
+}
@@ -0,0 +1,53 @@
+package com.kelin.countdownview;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * 每一帧的进度计算，也就是原来{@code CD.onTick}中的工作。
+ */
+@State(Scope.Thread)
+public class TickBenchmark {
+
+    @Param({"true", "false"})
+    public boolean smooth;
+
+    @Param({"3", "2"})
+    public int progressMode;
+
+    private final FrameTimeSource mTime = new FrameTimeSource();
+    private CountDownEngine mEngine;
+
+    @Setup
+    public void setUp() {
+        mEngine = new CountDownEngine(mTime)
+                .setDuration(Long.MAX_VALUE / 1000)
+                .setProgressMode(progressMode)
+                .setSmooth(smooth);
+        mEngine.start();
+    }
+
+    @Benchmark
+    public int update() {
+        mTime.now += 16;
+        return mEngine.update();
+    }
+
+    @Benchmark
+    public float computeSweep() {
+        mTime.now += 16;
+        return CountDownEngine.computeSweep(progressMode, 360, mTime.now % 360);
+    }
+
+    private static class FrameTimeSource implements CountDownEngine.TimeSource {
+        long now;
+
+        @Override
+        public long now() {
+            return now;
+        }
+    }
+}
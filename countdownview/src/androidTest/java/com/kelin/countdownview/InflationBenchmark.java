@@ -0,0 +1,75 @@
+package com.kelin.countdownview;
+
+import android.content.Context;
+import android.os.Bundle;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+import android.util.Log;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.widget.LinearLayout;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * 加载大量倒计时控件的耗时测试，分别统计只加载以及加载后第一次测量的耗时。
+ * <p>画笔和排版被推迟到第一次测量时才创建，所以加载的耗时应该明显低于加载并测量的耗时，结果会输出到日志以及测试报告中。
+ */
+@RunWith(AndroidJUnit4.class)
+public class InflationBenchmark {
+
+    private static final String TAG = "InflationBenchmark";
+    /**
+     * 每一轮加载的控件个数。
+     */
+    private static final int VIEWS_PER_ROUND = 50;
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int ROUNDS = 30;
+
+    @Test
+    public void inflateManyViews() throws Exception {
+        final Context context = InstrumentationRegistry.getTargetContext();
+        final long[] result = new long[2];
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                LayoutInflater inflater = LayoutInflater.from(context);
+                LinearLayout parent = new LinearLayout(context);
+                for (int i = 0; i < WARMUP_ROUNDS; i++) {
+                    runRound(inflater, parent, true);
+                }
+                for (int i = 0; i < ROUNDS; i++) {
+                    result[0] += runRound(inflater, parent, false);
+                    result[1] += runRound(inflater, parent, true);
+                }
+            }
+        });
+        long inflateNanos = result[0] / ((long) ROUNDS * VIEWS_PER_ROUND);
+        long inflateAndMeasureNanos = result[1] / ((long) ROUNDS * VIEWS_PER_ROUND);
+        Log.i(TAG, "inflate: " + inflateNanos + "ns/view, inflate + measure: " + inflateAndMeasureNanos + "ns/view");
+        Bundle status = new Bundle();
+        status.putLong("inflate_ns_per_view", inflateNanos);
+        status.putLong("inflate_measure_ns_per_view", inflateAndMeasureNanos);
+        InstrumentationRegistry.getInstrumentation().sendStatus(0, status);
+    }
+
+    /**
+     * 加载一轮控件。
+     *
+     * @return 返回本轮的耗时，单位为纳秒。
+     */
+    private static long runRound(LayoutInflater inflater, LinearLayout parent, boolean measure) {
+        parent.removeAllViews();
+        int spec = View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED);
+        long start = System.nanoTime();
+        for (int i = 0; i < VIEWS_PER_ROUND; i++) {
+            View view = inflater.inflate(R.layout.benchmark_count_down_view, parent, false);
+            if (measure) {
+                view.measure(spec, spec);
+            }
+            parent.addView(view);
+        }
+        return System.nanoTime() - start;
+    }
+}
@@ -0,0 +1,83 @@
+package com.kelin.countdownview;
+
+/**
+ * <strong>描述: </strong> 按照剩余进度变色的颜色表。
+ * <p>颜色表在设置颜色时一次性计算好，绘制时只需要根据剩余进度查表，不会做任何插值计算，也不会创建任何对象。
+ * 这个类不依赖任何Android的API。
+ * <p><strong>创建人: </strong> kelin
+ * <p><strong>版本: </strong> v 1.0.0
+ */
+final class ColorStops {
+
+    /**
+     * 颜色表的大小，剩余进度每变化1/255查一次表，足够让插值的颜色看起来是连续的。
+     */
+    static final int TABLE_SIZE = 256;
+
+    private final int[] mTable = new int[TABLE_SIZE];
+
+    /**
+     * @param colors      每个节点的颜色，至少需要一个。
+     * @param positions   每个节点所在的剩余进度，范围为：0~1，必须是递增的，为null时均匀分布。
+     * @param interpolate 是否在相邻的节点之间渐变，否则剩余进度不超过某个节点时直接使用该节点的颜色。
+     */
+    ColorStops(int[] colors, float[] positions, boolean interpolate) {
+        if (colors == null || colors.length == 0) {
+            throw new IllegalArgumentException("the colors must not be empty!");
+        }
+        if (positions != null && positions.length != colors.length) {
+            throw new IllegalArgumentException("the positions must have the same length as the colors!");
+        }
+        for (int i = 0; i < TABLE_SIZE; i++) {
+            mTable[i] = computeColor(colors, positions, interpolate, i / (float) (TABLE_SIZE - 1));
+        }
+    }
+
+    /**
+     * 根据剩余进度查表获取颜色。
+     *
+     * @param fraction 剩余进度，范围为：0~1，超出范围时取边界的颜色。
+     */
+    int getColor(float fraction) {
+        int index = Math.round(fraction * (TABLE_SIZE - 1));
+        return mTable[index < 0 ? 0 : index >= TABLE_SIZE ? TABLE_SIZE - 1 : index];
+    }
+
+    private static int computeColor(int[] colors, float[] positions, boolean interpolate, float fraction) {
+        int last = colors.length - 1;
+        for (int i = 0; i <= last; i++) {
+            float position = getPosition(positions, i, last);
+            if (fraction <= position) {
+                if (!interpolate || i == 0) {
+                    return colors[i];
+                }
+                float previous = getPosition(positions, i - 1, last);
+                float t = position > previous ? (fraction - previous) / (position - previous) : 1;
+                return blend(colors[i - 1], colors[i], t);
+            }
+        }
+        return colors[last];
+    }
+
+    private static float getPosition(float[] positions, int index, int last) {
+        if (positions != null) {
+            return positions[index];
+        }
+        return last == 0 ? 1 : index / (float) last;
+    }
+
+    /**
+     * 按照比例混合两个颜色，每个通道分别线性插值。
+     */
+    static int blend(int from, int to, float t) {
+        int a = blendChannel(from >>> 24, to >>> 24, t);
+        int r = blendChannel((from >> 16) & 0xFF, (to >> 16) & 0xFF, t);
+        int g = blendChannel((from >> 8) & 0xFF, (to >> 8) & 0xFF, t);
+        int b = blendChannel(from & 0xFF, to & 0xFF, t);
+        return a << 24 | r << 16 | g << 8 | b;
+    }
+
+    private static int blendChannel(int from, int to, float t) {
+        return Math.round(from + (to - from) * t);
+    }
+}
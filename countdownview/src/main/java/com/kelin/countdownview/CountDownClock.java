@@ -0,0 +1,213 @@
+package com.kelin.countdownview;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.view.Choreographer;
+
+import java.util.ArrayList;
+
+/**
+ * <strong>描述: </strong> 进程内共享的倒计时时钟。所有正在运行的倒计时都注册到这里，由同一个帧回调统一驱动，
+ * 每一帧只读取一次时间并在一轮遍历中把更新分发给所有监听者，没有监听者时自动停止，不再向主线程投递任何消息。
+ * <p>共享的实例只能在主线程中使用，需要在其他线程(例如渲染线程)中逐帧刷新时可以通过{@link #createForCurrentThread()}创建一个绑定到该线程的时钟。
+ * <p><strong>创建人: </strong> kelin
+ * <p><strong>版本: </strong> v 1.0.0
+ */
+final class CountDownClock {
+
+    /**
+     * Choreographer 不可用时(API 16 以下)的帧间隔，单位为毫秒。
+     */
+    private static final long FALLBACK_FRAME_INTERVAL = 16;
+
+    /**
+     * 时钟所使用的时间来源，所有倒计时都应该使用它来计算剩余时间。
+     */
+    static final CountDownEngine.TimeSource TIME_SOURCE = new CountDownEngine.TimeSource() {
+        @Override
+        public long now() {
+            return SystemClock.elapsedRealtime();
+        }
+    };
+
+    private static CountDownClock sInstance;
+    /**
+     * 所有注册的监听者，分发过程中被移除的监听者会先被置为null，等分发结束后再统一清理。
+     */
+    private final ArrayList<OnFrameListener> mListeners = new ArrayList<>();
+    private final FrameDriver mDriver;
+    /**
+     * 是否正在分发帧回调。
+     */
+    private boolean mDispatching;
+    /**
+     * 分发过程中是否有监听者被移除。
+     */
+    private boolean mHasRemoved;
+    /**
+     * 是否已经向帧驱动器请求了下一帧。
+     */
+    private boolean mFrameScheduled;
+    /**
+     * 正在运行的倒计时数量，每个时钟使用自己的名字，渲染线程中的时钟不会覆盖主线程中的。
+     */
+    private final CountDownTrace.Counter mActiveCounter;
+
+    private CountDownClock(Looper looper, String counterName) {
+        mActiveCounter = new CountDownTrace.Counter(counterName);
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            mDriver = new ChoreographerDriver();
+        } else {
+            mDriver = new HandlerDriver(looper);
+        }
+    }
+
+    /**
+     * 获取共享时钟的实例，必须在主线程中调用。
+     */
+    static CountDownClock getInstance() {
+        if (sInstance == null) {
+            sInstance = new CountDownClock(Looper.getMainLooper(), "CountDownClock#activeCountDowns");
+        }
+        return sInstance;
+    }
+
+    /**
+     * 创建一个绑定到当前线程的时钟，当前线程必须有{@link Looper}，返回的时钟只能在当前线程中使用。
+     */
+    static CountDownClock createForCurrentThread() {
+        Looper looper = Looper.myLooper();
+        if (looper == null) {
+            throw new IllegalStateException("The current thread has no looper!");
+        }
+        Thread thread = Thread.currentThread();
+        return new CountDownClock(looper, "CountDownClock#activeCountDowns@" + thread.getName() + "-" + thread.getId());
+    }
+
+    /**
+     * 注册帧监听，同一个监听者重复注册不会产生多次回调。
+     *
+     * @param listener 要注册的监听。
+     */
+    void register(OnFrameListener listener) {
+        if (!mListeners.contains(listener)) {
+            mListeners.add(listener);
+        }
+        if (!mFrameScheduled) {
+            mFrameScheduled = true;
+            mDriver.postFrame();
+        }
+    }
+
+    /**
+     * 注销帧监听，当没有任何监听者时时钟会在下一帧停止。
+     *
+     * @param listener 要注销的监听。
+     */
+    void unregister(OnFrameListener listener) {
+        int index = mListeners.indexOf(listener);
+        if (index >= 0) {
+            if (mDispatching) {
+                mListeners.set(index, null);
+                mHasRemoved = true;
+            } else {
+                mListeners.remove(index);
+            }
+        }
+    }
+
+    /**
+     * 判断监听者当前是否已注册。
+     */
+    boolean isRegistered(OnFrameListener listener) {
+        return mListeners.contains(listener);
+    }
+
+    private void doFrame() {
+        boolean trace = CountDownTrace.beginSection("CountDownClock#doFrame");
+        try {
+            dispatchFrame();
+        } finally {
+            if (trace) {
+                CountDownTrace.endSection();
+            }
+        }
+    }
+
+    private void dispatchFrame() {
+        mFrameScheduled = false;
+        long now = TIME_SOURCE.now();
+        mDispatching = true;
+        //分发过程中新注册的监听者要到下一帧才会收到回调。
+        int size = mListeners.size();
+        for (int i = 0; i < size; i++) {
+            OnFrameListener listener = mListeners.get(i);
+            if (listener != null) {
+                listener.onFrame(now);
+            }
+        }
+        mDispatching = false;
+        if (mHasRemoved) {
+            mHasRemoved = false;
+            for (int i = mListeners.size() - 1; i >= 0; i--) {
+                if (mListeners.get(i) == null) {
+                    mListeners.remove(i);
+                }
+            }
+        }
+        mActiveCounter.set(mListeners.size());
+        if (!mListeners.isEmpty() && !mFrameScheduled) {
+            mFrameScheduled = true;
+            mDriver.postFrame();
+        }
+    }
+
+    interface OnFrameListener {
+        /**
+         * 每一帧被调用一次。
+         *
+         * @param now 本帧的时间，取自{@link SystemClock#elapsedRealtime()}，同一帧内所有监听者收到的值相同。
+         */
+        void onFrame(long now);
+    }
+
+    private interface FrameDriver {
+        void postFrame();
+    }
+
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+    private class ChoreographerDriver implements FrameDriver, Choreographer.FrameCallback {
+        private final Choreographer mChoreographer = Choreographer.getInstance();
+
+        @Override
+        public void postFrame() {
+            mChoreographer.postFrameCallback(this);
+        }
+
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            CountDownClock.this.doFrame();
+        }
+    }
+
+    private class HandlerDriver implements FrameDriver, Runnable {
+        private final Handler mHandler;
+
+        HandlerDriver(Looper looper) {
+            mHandler = new Handler(looper);
+        }
+
+        @Override
+        public void postFrame() {
+            mHandler.postDelayed(this, FALLBACK_FRAME_INTERVAL);
+        }
+
+        @Override
+        public void run() {
+            doFrame();
+        }
+    }
+}
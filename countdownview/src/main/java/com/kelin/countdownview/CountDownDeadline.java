@@ -0,0 +1,89 @@
+package com.kelin.countdownview;
+
+import android.support.annotation.Nullable;
+
+/**
+ * <strong>描述: </strong> {@link CountDownRegistry}中的一个截止时间，由{@link CountDownRegistry#add(long, long, CountDownView.OnFinishListener)}创建。
+ * <p>截止时间本身只占用时间轮中的一个位置，不会持有任何控件，也不会产生任何刷新。需要显示时可以通过{@link CountDownView#attachTo(CountDownDeadline)}
+ * 让控件按照它的进度绘制，控件被回收后截止时间仍然有效。
+ * <p><strong>创建人: </strong> kelin
+ * <p><strong>版本: </strong> v 1.0.0
+ */
+public final class CountDownDeadline extends TimingWheel.Node {
+
+    private final CountDownRegistry mRegistry;
+    private final long mDuration;
+    private final CountDownView.OnFinishListener mOnFinishListener;
+    private Object mTag;
+    private boolean mExpired;
+
+    CountDownDeadline(CountDownRegistry registry, long duration, @Nullable CountDownView.OnFinishListener listener) {
+        mRegistry = registry;
+        mDuration = duration;
+        mOnFinishListener = listener;
+    }
+
+    /**
+     * 获取截止时间，取自{@link android.os.SystemClock#elapsedRealtime()}。
+     */
+    public long getDeadline() {
+        return mDeadline;
+    }
+
+    /**
+     * 获取倒计时的总时长，用来计算进度条的进度。
+     */
+    public long getDuration() {
+        return mDuration;
+    }
+
+    /**
+     * 获取剩余的毫秒数，已经到期或被取消时返回0。
+     */
+    public long getRemainingMillis() {
+        return isActive() ? Math.max(mDeadline - CountDownClock.TIME_SOURCE.now(), 0) : 0;
+    }
+
+    /**
+     * 判断截止时间是否还在等待到期。
+     */
+    public boolean isActive() {
+        return mSlot >= 0;
+    }
+
+    /**
+     * 判断截止时间是否已经到期，被取消的截止时间不会到期。
+     */
+    public boolean isExpired() {
+        return mExpired;
+    }
+
+    /**
+     * 取消截止时间，不会再回调结束监听。
+     */
+    public void cancel() {
+        mRegistry.cancel(this);
+    }
+
+    /**
+     * 设置附加的数据，例如列表中的商品ID。
+     */
+    public CountDownDeadline setTag(@Nullable Object tag) {
+        mTag = tag;
+        return this;
+    }
+
+    public Object getTag() {
+        return mTag;
+    }
+
+    /**
+     * 由{@link CountDownRegistry}在到期时调用。
+     */
+    void dispatchExpired() {
+        mExpired = true;
+        if (mOnFinishListener != null) {
+            mOnFinishListener.onFinish();
+        }
+    }
+}
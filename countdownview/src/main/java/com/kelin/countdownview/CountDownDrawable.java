@@ -0,0 +1,1096 @@
+package com.kelin.countdownview;
+
+import android.content.Context;
+import android.content.res.TypedArray;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.ColorFilter;
+import android.graphics.Matrix;
+import android.graphics.Paint;
+import android.graphics.PixelFormat;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import android.graphics.SweepGradient;
+import android.graphics.drawable.Drawable;
+import android.os.SystemClock;
+import android.support.annotation.ColorInt;
+import android.support.annotation.IntRange;
+import android.support.annotation.Nullable;
+import android.text.StaticLayout;
+import android.text.TextPaint;
+
+/**
+ * <strong>描述: </strong> 倒计时图形，负责绘制背景圆、进度条以及文字。
+ * <p>既可以作为{@link CountDownView}的渲染器，也可以单独使用：通过{@link #setDeadline(long, long)}指定一个绝对的结束时间，
+ * 适合在RecyclerView的条目中使用，绑定数据时只是记录结束时间，复用的条目在第一次绘制时就会显示正确的剩余进度，
+ * 并且只有真正被绘制到屏幕上的图形才会注册到{@link CountDownClock}中刷新。
+ * <p><strong>创建人: </strong> kelin
+ * <p><strong>版本: </strong> v 1.0.0
+ */
+public class CountDownDrawable extends Drawable implements CountDownClock.OnFrameListener {
+
+    private static final String DEFAULT_TEXT = "";
+    private static final int DEFAULT_CIRCLE_COLOR = 0xFF666666;
+    private static final int DEFAULT_PROGRESS_BAR_COLOR = 0xFFFF0000;
+    private static final int DEFAULT_TEXT_COLOR = 0xFFFFFFFF;
+    /**
+     * 一度所对应的弧度。
+     */
+    private static final float RADIANS_PER_DEGREE = (float) (Math.PI / 180);
+    /**
+     * 进度条末端移动距离的最小值，单位为px，小于这个值的变化肉眼不可见，所以不会触发重绘。
+     */
+    private static final float MIN_SWEEP_CHANGE_PX = 0.25F;
+    /**
+     * 文字与背景圆之间的默认间距。
+     */
+    private final int DEFAULT_PADDING;
+    /**
+     * 用来画圆的画笔，第一次测量或绘制时才会创建。
+     */
+    private Paint mCirclePaint;
+    /**
+     * 用来画进度条的画笔，第一次测量或绘制时才会创建。
+     */
+    private Paint mProgressBarPaint;
+    /**
+     * 用来绘制字体的画笔，第一次测量或绘制时才会创建。
+     */
+    private TextPaint mTextPaint;
+    /**
+     * 画笔的配置，修改配置时只是记录下来，等到画笔被使用前再统一应用到画笔上。
+     */
+    private int mCircleColor = DEFAULT_CIRCLE_COLOR;
+    private int mProgressBarColor = DEFAULT_PROGRESS_BAR_COLOR;
+    private int mProgressBarWidth;
+    private boolean mRoundStrokeCap;
+    private int mTextColor = DEFAULT_TEXT_COLOR;
+    private float mTextSize;
+    /**
+     * 通过{@link #setAlpha(int)}设置的透明度，小于0表示没有设置。
+     */
+    private int mAlpha = -1;
+    private ColorFilter mColorFilter;
+    /**
+     * 进度条的渐变，为null表示不使用渐变。渐变只在设置颜色时创建一次，圆心始终在原点，尺寸或进度条方向改变时只需要更新它的矩阵。
+     */
+    private SweepGradient mGradient;
+    private final Matrix mGradientMatrix = new Matrix();
+    private boolean mGradientMatrixDirty;
+    /**
+     * 按照剩余进度变色的颜色表，为null表示不变色。
+     */
+    private ColorStops mColorStops;
+    /**
+     * 已经设置到进度条画笔上的颜色表中的颜色，颜色没有变化时不会重复设置。
+     */
+    private int mAppliedStopColor;
+    private boolean mStopColorApplied;
+    /**
+     * 画笔的配置是否有变化需要重新应用。
+     */
+    private boolean mPaintsDirty = true;
+    /**
+     * 共享的样式，不为null时直接使用样式中的画笔。
+     */
+    private CountDownStyle mStyle;
+    /**
+     * 绘制进度条时需要用到的矩形，为了避免在draw的时候重复new，所以在这里直接创建了。
+     */
+    private final RectF mRect = new RectF();
+    /**
+     * 要显示的文字。
+     */
+    private CharSequence mContentText = DEFAULT_TEXT;
+    /**
+     * 每行文字的长度，用作换号的依据。
+     */
+    private int mLineTextLength = 4;
+    /**
+     * 用来绘制文字的工具，可能来自共享的{@link TextLayoutCache}，第一次测量或绘制时才会创建，为null表示需要重新排版。
+     */
+    private StaticLayout mStaticLayout;
+    /**
+     * 是否使用共享的{@link TextLayoutCache}，在非主线程中绘制时不能使用共享的排版。
+     */
+    private boolean mTextLayoutShared = true;
+    /**
+     * 是否根据圆的大小自动调整字体大小以及单行文字个数，调整后的字体不会超过设置的字体大小。
+     */
+    private boolean mAutoFitText;
+    /**
+     * 自动调整时字体大小的最小值，单位为px。
+     */
+    private float mAutoFitMinTextSize;
+    /**
+     * 自动调整时文字需要放进的圆的半径，由所在的控件在测量时根据可用的尺寸设置，小于等于0表示没有限制。
+     */
+    private int mFitRadius;
+    /**
+     * 自动调整的结果，为null表示使用设置的字体大小以及单行文字个数。
+     */
+    private TextFitter.Fit mTextFit;
+    /**
+     * 自动调整的结果是否需要重新获取。
+     */
+    private boolean mTextFitDirty = true;
+    /**
+     * 自动调整字体时用来排版的工具，第一次自动调整时才会创建，之后一直复用。
+     */
+    private LayoutMeasurer mFitMeasurer;
+    /**
+     * 用来记录当前的进度条模式。
+     */
+    private int mProgressBarMode = CountDownEngine.CLOCKWISE_FROM_EXIST;
+    /**
+     * 一个范围为：0~360的小数，用来记录当前的进度。
+     */
+    private float mProgress;
+    /**
+     * 一个范围为：0~360的数，做动画时从多少结束。
+     */
+    private long mProgressMax = 360;
+    /**
+     * 当前圆的半径。
+     */
+    private int mRadios;
+    /**
+     * 测量半径时额外附加的水平和垂直方向的间距，通常为所在View的padding。
+     */
+    private int mExtraWidth;
+    private int mExtraHeight;
+    /**
+     * 是否开启静态图层缓存，开启后背景圆和文字只会被绘制一次到缓存中，每一帧只需要绘制进度条。
+     */
+    private boolean mStaticLayerCacheEnabled;
+    /**
+     * 缓存背景圆和文字的图层。
+     */
+    private Bitmap mStaticLayer;
+    /**
+     * 静态图层是否需要重新绘制，文字、颜色或尺寸改变后都需要重新绘制。
+     */
+    private boolean mStaticLayerDirty = true;
+    /**
+     * 倒计时结束的时间点，取自{@link SystemClock#elapsedRealtime()}，小于等于0表示没有设置结束时间。
+     */
+    private long mDeadline;
+    /**
+     * 倒计时的总时长，配合{@link #mDeadline}计算剩余进度。
+     */
+    private long mDuration;
+    /**
+     * 上一帧请求的重绘是否还没有被执行，如果是说明当前图形已经不在屏幕上了。
+     */
+    private boolean mInvalidatePending;
+    /**
+     * 当前的结束时间是否已经回调过结束监听，保证每个结束时间只回调一次。
+     */
+    private boolean mFinishDispatched;
+    /**
+     * 倒计时的监听。
+     */
+    private CountDownView.OnFinishListener mOnFinishListener;
+    /**
+     * 在绘制中发现已经结束时，等绘制完成后再回调结束监听。
+     */
+    private final Runnable mFinishRunnable = new Runnable() {
+        @Override
+        public void run() {
+            if (mOnFinishListener != null) {
+                mOnFinishListener.onFinish();
+            }
+        }
+    };
+    /**
+     * 剩余时间文字的显示模式。
+     */
+    private int mRemainingTextMode = CountDownView.REMAINING_TEXT_NONE;
+    /**
+     * 剩余时间文字的字形缓存，只有开启了剩余时间文字后才会创建。
+     */
+    private DigitGlyphCache mDigitCache;
+    /**
+     * 当前显示的剩余时间。
+     */
+    private long mRemainingMillis;
+    /**
+     * 剩余时间的最大值，用来测量剩余时间文字最宽时的宽度。
+     */
+    private long mRemainingMaxMillis;
+
+    public CountDownDrawable(Context context) {
+        final float density = context.getResources().getDisplayMetrics().density;
+        DEFAULT_PADDING = (int) (3 * density + 0.5f);
+        mProgressBarWidth = (int) (2 * density + 0.5f);
+        mTextSize = (int) (0x0000_000E * context.getResources().getDisplayMetrics().scaledDensity + 0.5);
+        mAutoFitMinTextSize = (int) (8 * context.getResources().getDisplayMetrics().scaledDensity + 0.5);
+    }
+
+    static Paint createPaint(@Nullable Paint.Style style, @Nullable Paint.Align align) {
+        Paint paint = new Paint();
+        paint.setAntiAlias(true);
+        paint.setDither(true);
+        if (style != null) {
+            paint.setStyle(style);
+        }
+        if (align != null) {
+            paint.setTextAlign(align);
+        }
+        return paint;
+    }
+
+    /**
+     * 确保画笔已经创建并且与当前的配置一致，构造时不创建画笔，大量控件被加载时可以节省时间。
+     */
+    private void ensurePaints() {
+        if (!mPaintsDirty) {
+            return;
+        }
+        mPaintsDirty = false;
+        if (mStyle != null) {
+            mCirclePaint = mStyle.getCirclePaint();
+            mProgressBarPaint = mStyle.getProgressBarPaint();
+            mTextPaint = mStyle.getTextPaint();
+            return;
+        }
+        if (mCirclePaint == null) {
+            mCirclePaint = createPaint(Paint.Style.FILL, null);
+            mProgressBarPaint = createPaint(Paint.Style.STROKE, null);
+            mTextPaint = new TextPaint(createPaint(null, Paint.Align.CENTER));
+        }
+        mCirclePaint.setColor(mCircleColor);
+        mProgressBarPaint.setColor(mProgressBarColor);
+        mProgressBarPaint.setStrokeWidth(mProgressBarWidth);
+        mProgressBarPaint.setStrokeCap(mRoundStrokeCap ? Paint.Cap.ROUND : Paint.Cap.BUTT);
+        mProgressBarPaint.setShader(mGradient);
+        mStopColorApplied = false;
+        mTextPaint.setColor(mTextColor);
+        mTextPaint.setTextSize(mTextFit != null ? mTextFit.textSize : mTextSize);
+        if (mAlpha >= 0) {
+            mCirclePaint.setAlpha(mAlpha);
+            mProgressBarPaint.setAlpha(mAlpha);
+            mTextPaint.setAlpha(mAlpha);
+        }
+        mCirclePaint.setColorFilter(mColorFilter);
+        mProgressBarPaint.setColorFilter(mColorFilter);
+        mTextPaint.setColorFilter(mColorFilter);
+    }
+
+    /**
+     * 设置共享的样式，使用同一个样式的图形共享同一份画笔。之后如果再单独修改颜色、尺寸等外观，当前图形会改为使用自己的画笔。
+     *
+     * @param style 要使用的样式。
+     */
+    public CountDownDrawable setStyle(CountDownStyle style) {
+        mStyle = style;
+        mCircleColor = style.getCircleColor();
+        mProgressBarColor = style.getProgressBarColor();
+        mProgressBarWidth = style.getProgressBarWidth();
+        mRoundStrokeCap = style.isRoundStrokeCap();
+        mTextColor = style.getTextColor();
+        mTextSize = style.getTextSize();
+        mAlpha = -1;
+        mColorFilter = null;
+        mGradient = null;
+        mColorStops = null;
+        mAutoFitText = false;
+        mPaintsDirty = true;
+        mProgressBarMode = style.getProgressBarMode();
+        setProgressMax(style.getProgressMax());
+        setRemainingTextMode(style.getRemainingTextMode());
+        createStaticLayout();
+        return this;
+    }
+
+    @Nullable
+    public CountDownStyle getStyle() {
+        return mStyle;
+    }
+
+    /**
+     * 单独修改外观前调用，不再使用共享样式的画笔，当前的配置已经是样式的配置，所以只需要丢弃共享的画笔。
+     */
+    private void detachStyle() {
+        if (mStyle != null) {
+            mStyle = null;
+            mCirclePaint = null;
+            mProgressBarPaint = null;
+            mTextPaint = null;
+        }
+        mPaintsDirty = true;
+    }
+
+    /**
+     * 确保文字已经排版，排版依赖画笔，所以会先确保画笔可用。
+     */
+    private void ensureStaticLayout() {
+        ensurePaints();
+        ensureTextFit();
+        if (mStaticLayout == null) {
+            boolean trace = CountDownTrace.beginSection("CountDownDrawable#createStaticLayout");
+            try {
+                int lineTextLength = Math.min(mTextFit != null ? mTextFit.lineTextLength : mLineTextLength, mContentText.length());
+                if (mTextLayoutShared) {
+                    mStaticLayout = TextLayoutCache.obtain(mContentText, mTextPaint, lineTextLength);
+                } else {
+                    mStaticLayout = TextLayoutCache.createLayout(mContentText, mTextPaint, lineTextLength);
+                }
+            } finally {
+                if (trace) {
+                    CountDownTrace.endSection();
+                }
+            }
+        }
+    }
+
+    /**
+     * 确保自动调整的结果与当前的文字、字体以及圆的大小一致，结果有变化时把新的字体大小应用到画笔上并重新排版。
+     */
+    private void ensureTextFit() {
+        if (!mTextFitDirty) {
+            return;
+        }
+        mTextFitDirty = false;
+        TextFitter.Fit fit = null;
+        if (mAutoFitText && mFitRadius > 0 && mRemainingTextMode == CountDownView.REMAINING_TEXT_NONE && mContentText.length() > 0) {
+            boolean trace = CountDownTrace.beginSection("CountDownDrawable#fitText");
+            try {
+                if (mFitMeasurer == null) {
+                    mFitMeasurer = new LayoutMeasurer();
+                }
+                mFitMeasurer.prepare(mContentText, mTextPaint);
+                fit = TextFitter.obtain(mContentText, mTextPaint.getTypeface(), mFitRadius, mExtraWidth + DEFAULT_PADDING, mExtraHeight + DEFAULT_PADDING,
+                        (int) mAutoFitMinTextSize, (int) mTextSize, mFitMeasurer);
+            } finally {
+                if (trace) {
+                    CountDownTrace.endSection();
+                }
+            }
+        }
+        if (fit != mTextFit) {
+            mTextFit = fit;
+            mTextPaint.setTextSize(fit != null ? fit.textSize : mTextSize);
+            mStaticLayout = null;
+            mStaticLayerDirty = true;
+        }
+    }
+
+    /**
+     * 从{@code CountDownView}的自定义属性中读取图形相关的配置，由使用该图形的控件在构造时调用。
+     *
+     * @param ta 通过{@link R.styleable#CountDownView}获取的属性。
+     */
+    void applyAttributes(Context context, TypedArray ta) {
+        setCircleColor(ta.getColor(R.styleable.CountDownView_backgroundColor, DEFAULT_CIRCLE_COLOR));
+        setProgressBarWidth((int) (ta.getDimension(R.styleable.CountDownView_progressBarWidth, getProgressBarWidth()) + 0.9));
+        setProgressBarColor(ta.getColor(R.styleable.CountDownView_progressBarColor, 0xFF66BEE0));
+        setTextSize(ta.getDimension(R.styleable.CountDownView_android_textSize, mTextSize));
+        setTextColor(ta.getColor(R.styleable.CountDownView_android_textColor, DEFAULT_TEXT_COLOR));
+        setProgressMax(ta.getFloat(R.styleable.CountDownView_progressMax, 1));
+        setProgressBarMode(ta.getInt(R.styleable.CountDownView_progressBarMode, CountDownEngine.CLOCKWISE_FROM_EXIST));
+        CharSequence contentText;
+        if ((contentText = ta.getString(R.styleable.CountDownView_android_text)) == null) {
+            contentText = DEFAULT_TEXT;
+        }
+        int length = contentText.length();
+        if (length > 4) {
+            if ((length & 1) != 0) {
+                length++;
+            }
+            length = length >> 1;
+        }
+        setRoundStrokeCap(ta.getBoolean(R.styleable.CountDownView_roundStrokeCap, false));
+        setStaticLayerCacheEnabled(ta.getBoolean(R.styleable.CountDownView_staticLayerCache, false));
+        setRemainingTextMode(ta.getInt(R.styleable.CountDownView_remainingTextMode, CountDownView.REMAINING_TEXT_NONE));
+        setLineTextLength(ta.getInteger(R.styleable.CountDownView_lineTextLength, length));
+        setAutoFitMinTextSize(ta.getDimension(R.styleable.CountDownView_autoFitMinTextSize, mAutoFitMinTextSize));
+        setAutoFitText(ta.getBoolean(R.styleable.CountDownView_autoFitText, false));
+        setText(contentText);
+    }
+
+    /**
+     * 设置要显示的文字。
+     *
+     * @param text 要设置的文字的内容。
+     */
+    public CountDownDrawable setText(CharSequence text) {
+        mContentText = text == null ? DEFAULT_TEXT : text;
+        createStaticLayout();
+        return this;
+    }
+
+    CharSequence getText() {
+        return mContentText;
+    }
+
+    /**
+     * 设置字体大小。
+     *
+     * @param textSizePx 要设置的字体大小，单位为px。
+     */
+    public CountDownDrawable setTextSize(float textSizePx) {
+        detachStyle();
+        mTextSize = textSizePx;
+        createStaticLayout();
+        return this;
+    }
+
+    /**
+     * 设置字体颜色。
+     *
+     * @param color 要设置的颜色。
+     */
+    public CountDownDrawable setTextColor(@ColorInt int color) {
+        detachStyle();
+        mTextColor = color;
+        //颜色不影响排版，只需要重新绘制。
+        mStaticLayerDirty = true;
+        invalidateSelf();
+        return this;
+    }
+
+    /**
+     * 设置单行文字个数的最大值。
+     *
+     * @param lineTextLength 要设置的单行文字个数。
+     */
+    public CountDownDrawable setLineTextLength(@IntRange(from = 1) int lineTextLength) {
+        mLineTextLength = lineTextLength;
+        createStaticLayout();
+        return this;
+    }
+
+    /**
+     * 设置是否根据圆的大小自动调整字体大小以及单行文字个数。开启后在{@link #setTextSize(float)}到{@link #setAutoFitMinTextSize(float)}
+     * 之间查找能够放进圆中的最大字体，圆的大小由所在的控件在测量时提供，单独使用图形时不会调整。显示剩余时间时不会调整。
+     */
+    public CountDownDrawable setAutoFitText(boolean autoFit) {
+        if (autoFit) {
+            //调整后的字体大小会被设置到画笔上，所以不能使用共享样式的画笔。
+            detachStyle();
+        }
+        mAutoFitText = autoFit;
+        createStaticLayout();
+        return this;
+    }
+
+    boolean isAutoFitText() {
+        return mAutoFitText;
+    }
+
+    /**
+     * 设置自动调整时字体大小的最小值，连最小的字体都放不下时文字会超出圆的范围，与不调整时一样撑大圆。
+     *
+     * @param textSizePx 字体大小的最小值，单位为px。
+     */
+    public CountDownDrawable setAutoFitMinTextSize(float textSizePx) {
+        mAutoFitMinTextSize = textSizePx;
+        createStaticLayout();
+        return this;
+    }
+
+    /**
+     * 设置自动调整时文字需要放进的圆的半径，由所在的控件在测量时调用。
+     *
+     * @param radius 圆的半径，小于等于0表示没有限制。
+     */
+    void setFitRadius(int radius) {
+        if (mFitRadius != radius) {
+            mFitRadius = radius;
+            mTextFitDirty = true;
+        }
+    }
+
+    /**
+     * 设置是否使用共享的文字排版。共享的排版在绘制前会被修改画笔颜色，只能在主线程中绘制，
+     * 所以在其他线程中绘制的图形(例如{@link CountDownSurfaceView})必须使用自己的排版。
+     */
+    void setTextLayoutShared(boolean shared) {
+        if (mTextLayoutShared != shared) {
+            mTextLayoutShared = shared;
+            createStaticLayout();
+        }
+    }
+
+    /**
+     * 丢弃当前的排版，等到下一次测量或绘制时再重新排版，所以连续修改多个属性只会排版一次。
+     */
+    private void createStaticLayout() {
+        mStaticLayout = null;
+        mTextFitDirty = true;
+        mStaticLayerDirty = true;
+        invalidateSelf();
+    }
+
+    /**
+     * 设置圆形背景颜色。
+     *
+     * @param color 要设置的颜色。
+     */
+    public CountDownDrawable setCircleColor(@ColorInt int color) {
+        detachStyle();
+        mCircleColor = color;
+        mStaticLayerDirty = true;
+        invalidateSelf();
+        return this;
+    }
+
+    /**
+     * 设置进度条颜色，会清除之前设置的渐变以及按剩余进度变色的颜色。
+     *
+     * @param color 要设置的颜色。
+     */
+    public CountDownDrawable setProgressBarColor(@ColorInt int color) {
+        detachStyle();
+        mProgressBarColor = color;
+        mGradient = null;
+        mColorStops = null;
+        invalidateSelf();
+        return this;
+    }
+
+    /**
+     * 设置进度条沿着圆周的渐变色，渐变从圆的顶部开始，沿着进度条绘制的方向分布。
+     *
+     * @param colors    渐变的颜色，至少需要两个，为null时清除渐变。
+     * @param positions 每个颜色所在的位置，范围为：0~1，必须是递增的，为null时均匀分布。
+     */
+    public CountDownDrawable setProgressBarGradient(@Nullable @ColorInt int[] colors, @Nullable float[] positions) {
+        if (colors != null) {
+            if (colors.length < 2) {
+                throw new IllegalArgumentException("the gradient needs at least two colors!");
+            }
+            if (positions != null && positions.length != colors.length) {
+                throw new IllegalArgumentException("the positions must have the same length as the colors!");
+            }
+        }
+        detachStyle();
+        mGradient = colors == null ? null : new SweepGradient(0, 0, colors, positions);
+        mGradientMatrixDirty = true;
+        invalidateSelf();
+        return this;
+    }
+
+    /**
+     * 设置按照剩余进度变色的颜色，例如剩余时间越少越红。颜色在设置时就被计算成了颜色表，每一帧只需要查表。
+     * 同时设置了渐变时颜色只影响进度条的透明度。
+     *
+     * @param colors      每个节点的颜色，至少需要一个，为null时清除。
+     * @param positions   每个节点所在的剩余进度，范围为：0~1，必须是递增的，为null时均匀分布。
+     * @param interpolate 是否在相邻的节点之间渐变，否则剩余进度不超过某个节点时直接使用该节点的颜色。
+     */
+    public CountDownDrawable setProgressBarColorStops(@Nullable @ColorInt int[] colors, @Nullable float[] positions, boolean interpolate) {
+        ColorStops stops = colors == null ? null : new ColorStops(colors, positions, interpolate);
+        detachStyle();
+        mColorStops = stops;
+        invalidateSelf();
+        return this;
+    }
+
+    /**
+     * 设置进度条宽度。
+     *
+     * @param widthPx 要设置的宽度，单位为px。
+     */
+    public CountDownDrawable setProgressBarWidth(int widthPx) {
+        detachStyle();
+        mProgressBarWidth = widthPx;
+        invalidateSelf();
+        return this;
+    }
+
+    int getProgressBarWidth() {
+        return mProgressBarWidth;
+    }
+
+    /**
+     * 设置进度条的线是否有弧度。
+     *
+     * @param round true表示有弧度，false表示没有。
+     */
+    public CountDownDrawable setRoundStrokeCap(boolean round) {
+        detachStyle();
+        mRoundStrokeCap = round;
+        invalidateSelf();
+        return this;
+    }
+
+    /**
+     * 设置进度条模式。
+     *
+     * @param progressMode 要设置的模式。分别为：{@link CountDownView#CLOCKWISE_FROM_EXIST}、{@link CountDownView#CLOCKWISE_FROM_NOTHING}、{@link CountDownView#ANTICLOCKWISE_FROM_EXIST}、{@link CountDownView#ANTICLOCKWISE_FROM_NOTHING}。
+     */
+    public CountDownDrawable setProgressBarMode(@CountDownView.ProgressMode int progressMode) {
+        mProgressBarMode = progressMode;
+        mGradientMatrixDirty = true;
+        invalidateSelf();
+        return this;
+    }
+
+    /**
+     * 设置最大进度。
+     *
+     * @param progressMax 一个范围为：0~1的小数，表示进度条最多占整个圆的多少。
+     */
+    public CountDownDrawable setProgressMax(float progressMax) {
+        mProgressMax = (long) (360 * progressMax);
+        invalidateSelf();
+        return this;
+    }
+
+    /**
+     * 获取最近一次测量的背景圆的半径，还没有测量时为0。
+     */
+    int getRadius() {
+        return mRadios;
+    }
+
+    int getRemainingTextMode() {
+        return mRemainingTextMode;
+    }
+
+    int getProgressBarMode() {
+        return mProgressBarMode;
+    }
+
+    long getProgressMax() {
+        return mProgressMax;
+    }
+
+    /**
+     * 设置剩余时间文字的显示模式。开启后背景圆中不再显示文字内容，而是显示剩余的时间。
+     *
+     * @param mode 显示模式，分别为：{@link CountDownView#REMAINING_TEXT_NONE}、{@link CountDownView#REMAINING_TEXT_SECONDS}、{@link CountDownView#REMAINING_TEXT_CLOCK}。
+     */
+    public CountDownDrawable setRemainingTextMode(@CountDownView.RemainingTextMode int mode) {
+        mRemainingTextMode = mode;
+        if (mode != CountDownView.REMAINING_TEXT_NONE && mDigitCache == null) {
+            mDigitCache = new DigitGlyphCache();
+        }
+        mTextFitDirty = true;
+        mStaticLayerDirty = true;
+        invalidateSelf();
+        return this;
+    }
+
+    /**
+     * 设置剩余时间的最大值，同时把当前显示的剩余时间设置为这个值。
+     */
+    void setRemainingMaxMillis(long maxMillis) {
+        mRemainingMaxMillis = maxMillis;
+        mRemainingMillis = maxMillis;
+    }
+
+    /**
+     * 设置当前显示的剩余时间，只有显示的秒数发生变化时才会重绘。
+     *
+     * @return 如果需要重绘返回true，否则返回false。
+     */
+    boolean setRemainingMillis(long millisLeft) {
+        long old = mRemainingMillis;
+        mRemainingMillis = millisLeft;
+        if (mRemainingTextMode != CountDownView.REMAINING_TEXT_NONE && DigitGlyphCache.toSeconds(old) != DigitGlyphCache.toSeconds(millisLeft)) {
+            invalidateSelf();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 设置是否开启静态图层缓存。开启后背景圆和文字会被绘制到一张缓存的图片中，只有在文字、颜色或尺寸改变后才会重新绘制，
+     * 每一帧只需要绘制进度条，代价是多占用一张与图形等大的图片的内存。
+     *
+     * @param enabled true表示开启，false表示关闭。
+     */
+    public CountDownDrawable setStaticLayerCacheEnabled(boolean enabled) {
+        if (mStaticLayerCacheEnabled != enabled) {
+            mStaticLayerCacheEnabled = enabled;
+            if (!enabled) {
+                releaseStaticLayer();
+            }
+            mStaticLayerDirty = true;
+            invalidateSelf();
+        }
+        return this;
+    }
+
+    /**
+     * 设置倒计时的结束时间。这个方法只是记录结束时间，不会做任何计算，所以可以在绑定数据时放心调用，
+     * 剩余进度会在绘制时根据当前时间计算。
+     *
+     * @param deadline 结束的时间点，必须与{@link SystemClock#elapsedRealtime()}使用相同的时间基准。
+     * @param duration 倒计时的总时长，单位为毫秒，用于计算剩余进度占整个进度条的比例。
+     */
+    public CountDownDrawable setDeadline(long deadline, @IntRange(from = 1) long duration) {
+        if (duration <= 0) {
+            throw new IllegalArgumentException("the duration must be > 0!");
+        }
+        if (deadline != mDeadline) {
+            //重新绑定相同的结束时间时不会再次回调结束监听。
+            mFinishDispatched = false;
+            unscheduleSelf(mFinishRunnable);
+        }
+        mDeadline = deadline;
+        mDuration = duration;
+        mRemainingMaxMillis = duration;
+        mInvalidatePending = false;
+        invalidateSelf();
+        return this;
+    }
+
+    /**
+     * 清除倒计时的结束时间，停止刷新。
+     */
+    public CountDownDrawable clearDeadline() {
+        mDeadline = 0;
+        mFinishDispatched = false;
+        unscheduleSelf(mFinishRunnable);
+        CountDownClock.getInstance().unregister(this);
+        return this;
+    }
+
+    /**
+     * 获取剩余的毫秒数，没有设置结束时间时返回0。
+     */
+    public long getRemainingMillis() {
+        return mDeadline > 0 ? Math.max(mDeadline - SystemClock.elapsedRealtime(), 0) : 0;
+    }
+
+    /**
+     * 设置倒计时结束的监听，每个结束时间只回调一次。在不可见时到达结束时间的，会在重新可见或者下一次绘制时回调。
+     */
+    public CountDownDrawable setOnFinishListener(CountDownView.OnFinishListener listener) {
+        mOnFinishListener = listener;
+        return this;
+    }
+
+    /**
+     * 根据剩余的角度计算进度条需要绘制的角度。
+     *
+     * @param remaining 剩余的角度，范围为：0~{@link #mProgressMax}。
+     * @return 返回进度条需要绘制的角度，负数表示逆向绘制。
+     */
+    float computeProgress(float remaining) {
+        return CountDownEngine.computeSweep(mProgressBarMode, mProgressMax, remaining);
+    }
+
+    /**
+     * 设置进度条需要绘制的角度。
+     *
+     * @param progress 进度条需要绘制的角度。
+     * @param force    是否强制重绘，如果为false则进度条末端的移动距离不足一定的像素时不会重绘。
+     * @return 如果进度被更新了返回true，否则返回false。
+     */
+    boolean setProgress(float progress, boolean force) {
+        if (!force && Math.abs(progress - mProgress) * mRadios * RADIANS_PER_DEGREE < MIN_SWEEP_CHANGE_PX) {
+            return false;
+        }
+        mProgress = progress;
+        invalidateSelf();
+        return true;
+    }
+
+    /**
+     * 根据文字以及额外的间距测量背景圆的半径。
+     *
+     * @param extraWidth  水平方向额外的间距。
+     * @param extraHeight 垂直方向额外的间距。
+     * @return 返回测量后的半径。
+     */
+    int measureRadius(int extraWidth, int extraHeight) {
+        if (mExtraWidth != extraWidth || mExtraHeight != extraHeight) {
+            mExtraWidth = extraWidth;
+            mExtraHeight = extraHeight;
+            mTextFitDirty = true;
+        }
+        ensurePaints();
+        ensureTextFit();
+        int w;
+        int h;
+        if (mRemainingTextMode != CountDownView.REMAINING_TEXT_NONE) {
+            //按照剩余时间最长时的文字测量，倒计时过程中圆的大小不会改变。
+            mDigitCache.ensure(mTextPaint);
+            mDigitCache.format(mRemainingMaxMillis, mRemainingTextMode);
+            w = (int) Math.ceil(mDigitCache.measure()) + extraWidth + DEFAULT_PADDING;
+            h = (int) Math.ceil(mDigitCache.getLineHeight()) + extraHeight + DEFAULT_PADDING;
+        } else {
+            ensureStaticLayout();
+            w = mStaticLayout.getWidth() + extraWidth + DEFAULT_PADDING;
+            h = mStaticLayout.getHeight() + extraHeight + DEFAULT_PADDING;
+        }
+        int radios = CountDownGeometry.computeRadius(w, h);
+        if (radios != mRadios) {
+            mRadios = radios;
+            mStaticLayerDirty = true;
+        }
+        return radios;
+    }
+
+    @Override
+    public int getIntrinsicWidth() {
+        return (measureRadius(mExtraWidth, mExtraHeight) << 1) + getProgressBarWidth();
+    }
+
+    @Override
+    public int getIntrinsicHeight() {
+        return getIntrinsicWidth();
+    }
+
+    @Override
+    protected void onBoundsChange(Rect bounds) {
+        super.onBoundsChange(bounds);
+        mStaticLayerDirty = true;
+        mGradientMatrixDirty = true;
+    }
+
+    @Override
+    public boolean setVisible(boolean visible, boolean restart) {
+        boolean changed = super.setVisible(visible, restart);
+        if (visible) {
+            if (dispatchFinishIfExpired(SystemClock.elapsedRealtime())) {
+                mFinishRunnable.run();
+            }
+            scheduleIfNeeded();
+        } else {
+            CountDownClock.getInstance().unregister(this);
+        }
+        return changed;
+    }
+
+    @Override
+    public void draw(Canvas canvas) {
+        mInvalidatePending = false;
+        if (mDeadline > 0) {
+            long now = SystemClock.elapsedRealtime();
+            long millisLeft = mDeadline - now;
+            mProgress = computeProgress(millisLeft > 0 ? millisLeft * mProgressMax / (float) mDuration : 0);
+            mRemainingMillis = Math.max(millisLeft, 0);
+            if (dispatchFinishIfExpired(now)) {
+                if (getCallback() != null) {
+                    scheduleSelf(mFinishRunnable, SystemClock.uptimeMillis());
+                } else {
+                    mFinishRunnable.run();
+                }
+            }
+            scheduleIfNeeded();
+        }
+        ensurePaints();
+        ensureTextFit();
+        Rect bounds = getBounds();
+        int cx = bounds.centerX();
+        int cy = bounds.centerY();
+        if (mStaticLayerCacheEnabled) {
+            if (mStaticLayerDirty || mStaticLayer == null) {
+                updateStaticLayer(cx - bounds.left, cy - bounds.top);
+            }
+            canvas.drawBitmap(mStaticLayer, bounds.left, bounds.top, null);
+        } else {
+            drawStaticLayer(canvas, cx, cy);
+        }
+        if (mRemainingTextMode != CountDownView.REMAINING_TEXT_NONE) {
+            mDigitCache.ensure(mTextPaint);
+            mDigitCache.format(mRemainingMillis, mRemainingTextMode);
+            mDigitCache.draw(canvas, cx, cy, mTextPaint);
+        }
+
+        mRect.left = cx - mRadios;
+        mRect.top = cy - mRadios;
+        mRect.right = cx + mRadios;
+        mRect.bottom = cy + mRadios;
+        if (mGradient != null && mGradientMatrixDirty) {
+            updateGradientMatrix(cx, cy);
+        }
+        if (mColorStops != null) {
+            applyStopColor();
+        }
+        canvas.drawArc(mRect, -90, mProgress, false, mProgressBarPaint);
+    }
+
+    /**
+     * 让渐变以(cx, cy)为圆心，从顶部开始沿着进度条绘制的方向分布。
+     */
+    private void updateGradientMatrix(int cx, int cy) {
+        boolean clockwise = (mProgressBarMode & 2) != 0;
+        boolean fromExist = (mProgressBarMode & 1) != 0;
+        if (clockwise == fromExist) {
+            //进度条逆时针绘制，把渐变水平翻转。
+            mGradientMatrix.setScale(-1, 1);
+            mGradientMatrix.postRotate(90);
+        } else {
+            mGradientMatrix.setRotate(-90);
+        }
+        mGradientMatrix.postTranslate(cx, cy);
+        mGradient.setLocalMatrix(mGradientMatrix);
+        mGradientMatrixDirty = false;
+    }
+
+    /**
+     * 根据剩余进度查表设置进度条的颜色。
+     */
+    private void applyStopColor() {
+        float progress = Math.abs(mProgress);
+        float remaining = (mProgressBarMode & 1) != 0 ? progress : mProgressMax - progress;
+        int color = mColorStops.getColor(mProgressMax > 0 ? remaining / mProgressMax : 0);
+        if (!mStopColorApplied || color != mAppliedStopColor) {
+            mProgressBarPaint.setColor(color);
+            if (mAlpha >= 0) {
+                mProgressBarPaint.setAlpha(mAlpha);
+            }
+            mAppliedStopColor = color;
+            mStopColorApplied = true;
+        }
+    }
+
+    /**
+     * 绘制背景圆和文字，这部分内容在倒计时过程中不会改变。显示剩余时间时文字内容不会被绘制。
+     */
+    private void drawStaticLayer(Canvas canvas, int cx, int cy) {
+        canvas.drawCircle(cx, cy, mRadios, mCirclePaint);
+        if (mRemainingTextMode != CountDownView.REMAINING_TEXT_NONE) {
+            return;
+        }
+        ensureStaticLayout();
+        int saveCount = canvas.save();
+        canvas.translate(cx, cy - (mStaticLayout.getHeight() >>> 1));
+        TextPaint layoutPaint = mStaticLayout.getPaint();
+        if (layoutPaint != mTextPaint) {
+            //缓存的排版是共享的，绘制前把自己的颜色同步过去。
+            layoutPaint.setColor(mTextPaint.getColor());
+            layoutPaint.setColorFilter(mTextPaint.getColorFilter());
+        }
+        mStaticLayout.draw(canvas);
+        canvas.restoreToCount(saveCount);
+    }
+
+    /**
+     * 重新绘制静态图层缓存，尺寸没有变化时复用原有的图片。
+     */
+    private void updateStaticLayer(int cx, int cy) {
+        Rect bounds = getBounds();
+        int width = Math.max(bounds.width(), 1);
+        int height = Math.max(bounds.height(), 1);
+        if (mStaticLayer == null || mStaticLayer.getWidth() != width || mStaticLayer.getHeight() != height) {
+            releaseStaticLayer();
+            mStaticLayer = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+        } else {
+            mStaticLayer.eraseColor(Color.TRANSPARENT);
+        }
+        drawStaticLayer(new Canvas(mStaticLayer), cx, cy);
+        mStaticLayerDirty = false;
+    }
+
+    /**
+     * 释放静态图层缓存，下次绘制时会重新创建。
+     */
+    void releaseStaticLayer() {
+        if (mStaticLayer != null) {
+            mStaticLayer.recycle();
+            mStaticLayer = null;
+        }
+        mStaticLayerDirty = true;
+    }
+
+    /**
+     * 只有设置了结束时间、倒计时还没有结束、并且当前图形可见且被宿主持有时才注册到共享时钟。
+     */
+    private void scheduleIfNeeded() {
+        if (mDeadline > SystemClock.elapsedRealtime() && isVisible() && getCallback() != null) {
+            CountDownClock.getInstance().register(this);
+        }
+    }
+
+    /**
+     * 判断结束时间是否已经到达并且还没有回调过结束监听，是则标记为已回调，由调用者负责回调。
+     */
+    private boolean dispatchFinishIfExpired(long now) {
+        if (mDeadline <= 0 || mFinishDispatched || now < mDeadline) {
+            return false;
+        }
+        mFinishDispatched = true;
+        return true;
+    }
+
+    @Override
+    public void onFrame(long now) {
+        if (mInvalidatePending || !isVisible() || getCallback() == null) {
+            //上一帧的重绘请求没有被执行，说明宿主已经不在屏幕上了，等到下一次绘制时再重新注册。
+            CountDownClock.getInstance().unregister(this);
+            return;
+        }
+        long millisLeft = mDeadline - now;
+        if (millisLeft <= 0) {
+            CountDownClock.getInstance().unregister(this);
+            mProgress = computeProgress(0);
+            invalidateSelf();
+            if (dispatchFinishIfExpired(now)) {
+                mFinishRunnable.run();
+            }
+        } else {
+            boolean progressChanged = setProgress(computeProgress(millisLeft * mProgressMax / (float) mDuration), false);
+            if (setRemainingMillis(millisLeft) || progressChanged) {
+                mInvalidatePending = true;
+            }
+        }
+    }
+
+    @Override
+    public void setAlpha(@IntRange(from = 0, to = 255) int alpha) {
+        detachStyle();
+        mAlpha = alpha;
+        mStaticLayerDirty = true;
+        invalidateSelf();
+    }
+
+    @Override
+    public void setColorFilter(@Nullable ColorFilter colorFilter) {
+        detachStyle();
+        mColorFilter = colorFilter;
+        mStaticLayerDirty = true;
+        invalidateSelf();
+    }
+
+    @Override
+    public int getOpacity() {
+        return PixelFormat.TRANSLUCENT;
+    }
+
+    /**
+     * 自动调整字体时用来排版的工具，使用一支单独的画笔，不会影响正在使用的画笔以及共享的排版缓存。
+     */
+    private static final class LayoutMeasurer implements TextFitter.Measurer {
+        private CharSequence mText;
+        private TextPaint mSourcePaint;
+        /**
+         * 从正在使用的画笔同步过来的画笔，命中缓存时不会被同步。
+         */
+        private TextPaint mPaint;
+        private boolean mPaintSynced;
+
+        /**
+         * 设置接下来要排版的文字以及画笔，画笔只有在真正排版时才会被同步。
+         */
+        void prepare(CharSequence text, TextPaint paint) {
+            mText = text;
+            mSourcePaint = paint;
+            mPaintSynced = false;
+        }
+
+        @Override
+        public void measure(int textSize, int lineTextLength, int[] outSize) {
+            if (!mPaintSynced) {
+                if (mPaint == null) {
+                    mPaint = new TextPaint(mSourcePaint);
+                } else {
+                    mPaint.set(mSourcePaint);
+                }
+                mPaintSynced = true;
+            }
+            mPaint.setTextSize(textSize);
+            StaticLayout layout = TextLayoutCache.createLayout(mText, mPaint, Math.min(lineTextLength, mText.length()));
+            outSize[0] = layout.getWidth();
+            outSize[1] = layout.getHeight();
+        }
+    }
+}
@@ -0,0 +1,519 @@
+package com.kelin.countdownview;
+
+/**
+ * <strong>描述: </strong> 倒计时引擎，负责倒计时的状态以及进度条角度的计算。
+ * <p>这个类不依赖任何Android的API，时间由{@link TimeSource}提供，所以可以直接在JVM上进行测试，
+ * 也可以用一个假的时间来源同时模拟大量的倒计时。{@link CountDownView}只是在它的基础上负责调度和绘制。
+ * <p><strong>创建人: </strong> kelin
+ * <p><strong>版本: </strong> v 1.0.0
+ */
+public class CountDownEngine {
+
+    /**
+     * 表示进度条模式为顺时针从无到有。
+     */
+    public static final int CLOCKWISE_FROM_NOTHING = 0b0000_0010;
+    /**
+     * 表示进度条模式为顺时针从有到无。
+     */
+    public static final int CLOCKWISE_FROM_EXIST = 0b0000_0011;
+    /**
+     * 表示进度条模式为逆时针从无到有。
+     */
+    public static final int ANTICLOCKWISE_FROM_NOTHING = 0b0000_0000;
+    /**
+     * 表示进度条模式为逆时针从有到无。
+     */
+    public static final int ANTICLOCKWISE_FROM_EXIST = 0b0000_0001;
+
+    /**
+     * 表示倒计时还没有开始或已经被取消。
+     */
+    public static final int STATE_IDLE = 0;
+    /**
+     * 表示倒计时正在进行。
+     */
+    public static final int STATE_RUNNING = 1;
+    /**
+     * 表示倒计时被暂停。
+     */
+    public static final int STATE_PAUSED = 2;
+    /**
+     * 表示倒计时已经结束。
+     */
+    public static final int STATE_FINISHED = 3;
+
+    /**
+     * 表示本次更新进度没有变化。
+     */
+    public static final int UPDATE_NONE = 0;
+    /**
+     * 表示本次更新进度发生了变化。
+     */
+    public static final int UPDATE_PROGRESS = 1;
+    /**
+     * 表示本次更新后倒计时结束了。
+     */
+    public static final int UPDATE_FINISHED = 2;
+
+    /**
+     * 整个圆的角度。
+     */
+    private static final int DEGREES = 360;
+    /**
+     * 刻度模式下整个圆默认被分成的刻度数，每一度一个刻度。
+     */
+    public static final long DEFAULT_STEP_COUNT = DEGREES;
+
+    private final TimeSource mTimeSource;
+    /**
+     * 走完整个圆所需要的时长，单位为毫秒。
+     */
+    private long mDuration = 3000;
+    /**
+     * 进度条模式。
+     */
+    private int mProgressMode = CLOCKWISE_FROM_EXIST;
+    /**
+     * 一个范围为：0~360的数，做动画时从多少结束。
+     */
+    private long mProgressMax = DEGREES;
+    /**
+     * 是否为平滑模式，否则为刻度模式。
+     */
+    private boolean mSmooth;
+    /**
+     * 刻度模式下整个圆被分成的刻度数。
+     */
+    private long mStepCount = DEFAULT_STEP_COUNT;
+    /**
+     * 本次倒计时的总时长。
+     */
+    private long mMillisInFuture;
+    /**
+     * 刻度模式下每个刻度的时长。
+     */
+    private long mStepInterval;
+    private int mState = STATE_IDLE;
+    /**
+     * 倒计时结束的时间点。
+     */
+    private long mStopTime;
+    /**
+     * 暂停时剩余的毫秒数。
+     */
+    private long mPausedMillisLeft;
+    /**
+     * 上一次更新时的刻度。
+     */
+    private long mLastScale = -1;
+    /**
+     * 当前进度条需要绘制的角度。
+     */
+    private float mSweep;
+
+    public CountDownEngine(TimeSource timeSource) {
+        mTimeSource = timeSource;
+    }
+
+    /**
+     * 设置走完整个圆所需要的时长，对下一次{@link #start()}生效。
+     *
+     * @param duration 时长，单位为毫秒。
+     */
+    public CountDownEngine setDuration(long duration) {
+        if (duration <= 0) {
+            throw new IllegalArgumentException("the duration must be > 0!");
+        }
+        mDuration = duration;
+        return this;
+    }
+
+    public long getDuration() {
+        return mDuration;
+    }
+
+    /**
+     * 设置进度条模式。
+     *
+     * @param progressMode 要设置的模式。分别为：{@link #CLOCKWISE_FROM_EXIST}、{@link #CLOCKWISE_FROM_NOTHING}、{@link #ANTICLOCKWISE_FROM_EXIST}、{@link #ANTICLOCKWISE_FROM_NOTHING}。
+     */
+    public CountDownEngine setProgressMode(int progressMode) {
+        mProgressMode = progressMode;
+        return this;
+    }
+
+    public int getProgressMode() {
+        return mProgressMode;
+    }
+
+    /**
+     * 设置最大进度，对下一次{@link #start()}生效。
+     *
+     * @param progressMax 一个范围为：0~360的数，表示进度条最多占多少度。
+     */
+    public CountDownEngine setProgressMax(long progressMax) {
+        mProgressMax = progressMax;
+        return this;
+    }
+
+    public long getProgressMax() {
+        return mProgressMax;
+    }
+
+    /**
+     * 设置是否为平滑模式，倒计时正在进行时立即生效。平滑模式下每次更新都根据真实流逝的时间计算进度，并且严格按照时长结束；
+     * 刻度模式下进度按照{@link #setStepCount(long)}设置的刻度跳动。
+     */
+    public CountDownEngine setSmooth(boolean smooth) {
+        mSmooth = smooth;
+        if (isStarted()) {
+            updateStepInterval();
+        }
+        return this;
+    }
+
+    public boolean isSmooth() {
+        return mSmooth;
+    }
+
+    /**
+     * 设置刻度模式下整个圆被分成的刻度数，倒计时正在进行时立即生效。刻度越少进度更新得越少，
+     * 例如时长为一小时的倒计时设置为3600时每秒只更新一次。
+     *
+     * @param stepCount 刻度数，默认为{@link #DEFAULT_STEP_COUNT}。
+     */
+    public CountDownEngine setStepCount(long stepCount) {
+        if (stepCount <= 0) {
+            throw new IllegalArgumentException("the stepCount must be > 0!");
+        }
+        mStepCount = stepCount;
+        if (isStarted()) {
+            updateStepInterval();
+        }
+        return this;
+    }
+
+    public long getStepCount() {
+        return mStepCount;
+    }
+
+    /**
+     * 开始倒计时。
+     */
+    public void start() {
+        start(mTimeSource.now());
+    }
+
+    /**
+     * 以指定的时间作为起点开始倒计时，多个引擎使用同一个时间开始可以保证它们完全同步。
+     *
+     * @param now 当前时间，必须与时间来源使用相同的时间基准。
+     */
+    public void start(long now) {
+        if (isStarted()) {
+            throw new IllegalStateException("The countdown has begun!");
+        }
+        mMillisInFuture = mDuration * mProgressMax / DEGREES;
+        updateStepInterval();
+        mState = STATE_RUNNING;
+        moveTo(mMillisInFuture, now);
+    }
+
+    /**
+     * 暂停倒计时，剩余的时间会被保留。如果倒计时没有在进行则什么也不做。
+     */
+    public void pause() {
+        pause(mTimeSource.now());
+    }
+
+    /**
+     * 在指定的时间暂停倒计时。
+     *
+     * @param now 当前时间，必须与时间来源使用相同的时间基准。
+     */
+    public void pause(long now) {
+        if (mState == STATE_RUNNING) {
+            mPausedMillisLeft = Math.max(mStopTime - now, 0);
+            mState = STATE_PAUSED;
+        }
+    }
+
+    /**
+     * 从暂停的位置继续倒计时。如果倒计时没有被暂停则什么也不做。
+     */
+    public void resume() {
+        resume(mTimeSource.now());
+    }
+
+    /**
+     * 在指定的时间恢复倒计时。
+     *
+     * @param now 当前时间，必须与时间来源使用相同的时间基准。
+     */
+    public void resume(long now) {
+        if (mState == STATE_PAUSED) {
+            mStopTime = now + mPausedMillisLeft;
+            mState = STATE_RUNNING;
+        }
+    }
+
+    /**
+     * 从头开始倒计时，无论当前处于什么状态。
+     */
+    public void restart() {
+        restart(mTimeSource.now());
+    }
+
+    /**
+     * 以指定的时间作为起点从头开始倒计时。
+     *
+     * @param now 当前时间，必须与时间来源使用相同的时间基准。
+     */
+    public void restart(long now) {
+        mState = STATE_IDLE;
+        start(now);
+    }
+
+    /**
+     * 跳转到指定的进度，暂停状态下跳转后仍然保持暂停。
+     *
+     * @param fraction 一个范围为：0~1的小数，表示已经流逝的时间占总时长的比例。
+     */
+    public void seekTo(float fraction) {
+        if (!isStarted()) {
+            throw new IllegalStateException("The countdown is not started!");
+        }
+        if (fraction < 0) {
+            fraction = 0;
+        } else if (fraction > 1) {
+            fraction = 1;
+        }
+        moveTo((long) (mMillisInFuture * (1 - fraction)), mTimeSource.now());
+    }
+
+    /**
+     * 取消倒计时，进度保持不变。
+     */
+    public void cancel() {
+        mState = STATE_IDLE;
+    }
+
+    /**
+     * 立即结束倒计时，进度会被设置为结束时的进度。
+     */
+    public void finish() {
+        mState = STATE_FINISHED;
+        mPausedMillisLeft = 0;
+        mSweep = computeSweep(mProgressMode, mProgressMax, 0);
+    }
+
+    /**
+     * 使用时间来源的当前时间更新进度。
+     *
+     * @return 返回{@link #UPDATE_NONE}、{@link #UPDATE_PROGRESS}或{@link #UPDATE_FINISHED}。
+     */
+    public int update() {
+        return update(mTimeSource.now());
+    }
+
+    /**
+     * 根据指定的时间更新进度，同一帧内的多个引擎可以使用同一个时间。
+     *
+     * @param now 当前时间，必须与时间来源使用相同的时间基准。
+     * @return 返回{@link #UPDATE_NONE}、{@link #UPDATE_PROGRESS}或{@link #UPDATE_FINISHED}。
+     */
+    public int update(long now) {
+        if (mState != STATE_RUNNING) {
+            return UPDATE_NONE;
+        }
+        long millisLeft = mStopTime - now;
+        if (millisLeft <= 0) {
+            finish();
+            return UPDATE_FINISHED;
+        }
+        return applyRemaining(millisLeft) ? UPDATE_PROGRESS : UPDATE_NONE;
+    }
+
+    /**
+     * 根据当前的模式以及刻度数重新计算刻度的时长，下一次更新时会重新计算刻度。
+     */
+    private void updateStepInterval() {
+        mStepInterval = mSmooth ? 0 : mDuration / mStepCount;
+        mLastScale = -1;
+    }
+
+    /**
+     * 将剩余时间设置为指定的值并立即更新进度。
+     */
+    private void moveTo(long millisLeft, long now) {
+        if (mState == STATE_PAUSED) {
+            mPausedMillisLeft = millisLeft;
+        } else {
+            mStopTime = now + millisLeft;
+        }
+        mLastScale = -1;
+        applyRemaining(millisLeft);
+    }
+
+    /**
+     * 根据剩余时间计算进度。
+     *
+     * @return 进度有变化返回true，否则返回false。
+     */
+    private boolean applyRemaining(long millisLeft) {
+        float sweep;
+        if (mSmooth) {
+            sweep = computeSweep(mProgressMode, mProgressMax, millisLeft * (float) DEGREES / mDuration);
+        } else {
+            long scale = millisLeft * mStepCount / mDuration;
+            if (scale == mLastScale) {
+                return false;
+            }
+            mLastScale = scale;
+            sweep = computeSweep(mProgressMode, mProgressMax, scale * (float) DEGREES / mStepCount);
+        }
+        if (sweep == mSweep) {
+            return false;
+        }
+        mSweep = sweep;
+        return true;
+    }
+
+    /**
+     * 获取当前进度条需要绘制的角度，负数表示逆向绘制。
+     */
+    public float getSweep() {
+        return mSweep;
+    }
+
+    /**
+     * 设置当前进度条需要绘制的角度，倒计时没有开始时用来设置初始的进度。
+     */
+    public void setSweep(float sweep) {
+        mSweep = sweep;
+    }
+
+    /**
+     * 获取剩余的毫秒数。
+     */
+    public long getRemainingMillis() {
+        return getRemainingMillis(mTimeSource.now());
+    }
+
+    /**
+     * 获取指定时间的剩余毫秒数。
+     *
+     * @param now 当前时间，必须与时间来源使用相同的时间基准。
+     */
+    public long getRemainingMillis(long now) {
+        switch (mState) {
+            case STATE_RUNNING:
+                return Math.max(mStopTime - now, 0);
+            case STATE_PAUSED:
+                return mPausedMillisLeft;
+            default:
+                return 0;
+        }
+    }
+
+    /**
+     * 获取本次倒计时的总时长。
+     */
+    public long getMillisInFuture() {
+        return mMillisInFuture;
+    }
+
+    /**
+     * 获取刻度模式下距离下一个刻度还有多少毫秒，用来在刻度间隔较长时只在刻度到达时才醒来，而不是逐帧检查。
+     * 平滑模式下或者倒计时没有在进行时返回0。
+     *
+     * @param now 当前时间，必须与时间来源使用相同的时间基准。
+     */
+    public long getMillisUntilNextStep(long now) {
+        if (mSmooth || mState != STATE_RUNNING) {
+            return 0;
+        }
+        long millisLeft = mStopTime - now;
+        if (millisLeft <= 0) {
+            return 0;
+        }
+        long scale = millisLeft * mStepCount / mDuration;
+        //剩余时间小于该值时刻度会减一，向上取整后减一得到刻度变化后的第一个毫秒。
+        long boundary = (scale * mDuration + mStepCount - 1) / mStepCount - 1;
+        return Math.min(millisLeft - boundary, millisLeft);
+    }
+
+    /**
+     * 获取刻度模式下当前刻度已经到达了多少毫秒，也就是收到刻度的时间比刻度真正到达的时间晚了多少，用来统计刻度的抖动。
+     * 平滑模式下或者倒计时没有在进行时返回0。
+     *
+     * @param now 当前时间，必须与时间来源使用相同的时间基准。
+     */
+    public long getMillisSinceStep(long now) {
+        if (mSmooth || mState != STATE_RUNNING) {
+            return 0;
+        }
+        long millisLeft = mStopTime - now;
+        if (millisLeft <= 0) {
+            return 0;
+        }
+        long scale = millisLeft * mStepCount / mDuration;
+        //剩余时间不超过该值时进入当前刻度，计算方法与getMillisUntilNextStep中的边界相同。
+        long entry = Math.min(((scale + 1) * mDuration + mStepCount - 1) / mStepCount - 1, mMillisInFuture);
+        return Math.max(entry - millisLeft, 0);
+    }
+
+    /**
+     * 获取刻度模式下每个刻度的时长，平滑模式下为0。刻度数多于时长的毫秒数时也为0。
+     */
+    public long getStepInterval() {
+        return mStepInterval;
+    }
+
+    public int getState() {
+        return mState;
+    }
+
+    /**
+     * 判断倒计时是否已经开始，暂停状态也被认为是已经开始。
+     */
+    public boolean isStarted() {
+        return mState == STATE_RUNNING || mState == STATE_PAUSED;
+    }
+
+    public boolean isRunning() {
+        return mState == STATE_RUNNING;
+    }
+
+    public boolean isPaused() {
+        return mState == STATE_PAUSED;
+    }
+
+    /**
+     * 根据剩余的角度计算进度条需要绘制的角度。
+     *
+     * @param progressMode 进度条模式。
+     * @param progressMax  最大进度，范围为：0~360。
+     * @param remaining    剩余的角度，范围为：0~progressMax。
+     * @return 返回进度条需要绘制的角度，负数表示逆向绘制。
+     */
+    public static float computeSweep(int progressMode, float progressMax, float remaining) {
+        boolean clockwise = (progressMode & 2) != 0;
+        if ((progressMode & 1) != 0) {
+            return clockwise ? -remaining : remaining;
+        } else {
+            return clockwise ? progressMax - remaining : remaining - progressMax;
+        }
+    }
+
+    /**
+     * 时间来源。
+     */
+    public interface TimeSource {
+        /**
+         * 获取当前时间，单位为毫秒，只要求单调递增。
+         */
+        long now();
+    }
+}
@@ -0,0 +1,23 @@
+package com.kelin.countdownview;
+
+/**
+ * <strong>描述: </strong> 倒计时控件的几何计算，不依赖任何Android的API。
+ * <p><strong>创建人: </strong> kelin
+ * <p><strong>版本: </strong> v 1.0.0
+ */
+final class CountDownGeometry {
+
+    private CountDownGeometry() {
+    }
+
+    /**
+     * 计算能够容纳指定大小内容的圆的半径，也就是内容对角线长度的一半。
+     *
+     * @param contentWidth  内容的宽度。
+     * @param contentHeight 内容的高度。
+     * @return 返回圆的半径。
+     */
+    static int computeRadius(int contentWidth, int contentHeight) {
+        return (int) ((Math.sqrt(Math.pow(contentWidth, 2) + Math.pow(contentHeight, 2)) + 0.5f) / 2);
+    }
+}
@@ -0,0 +1,215 @@
+package com.kelin.countdownview;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.Nullable;
+
+import java.util.ArrayList;
+
+/**
+ * <strong>描述: </strong> 倒计时组，用一个时间基准同时驱动多个{@link CountDownView}。
+ * <p>组中的控件使用同一个时间开始、暂停、恢复和取消，所以它们之间不会产生漂移；组只向{@link CountDownClock}注册一个帧回调，
+ * 在一次回调中更新所有控件，N个控件的开销与一个计时器相当。每个控件自己的{@link CountDownView.OnFinishListener}仍然会在它结束时回调，
+ * 所有控件都结束后再回调组的结束监听，无论控件是通过{@link #start()}还是各自的{@link CountDownView#start()}开始的，
+ * 也无论最后一个控件是自然结束、被点击结束还是被单独取消；只有{@link #cancel()}不会回调。没有开始、已经结束或者暂停的控件不会被更新。
+ * <p>所有正在进行的控件都允许在刻度之间休眠时(例如刻度间隔较长)，组也不再逐帧刷新，只在最早的一个控件需要更新时醒来。
+ * <p>组中的控件不再单独注册到时钟上，所以控件的自动挂起设置在组中不生效。该类只能在主线程中使用。
+ * <p><strong>创建人: </strong> kelin
+ * <p><strong>版本: </strong> v 1.0.0
+ */
+public class CountDownGroup implements CountDownClock.OnFrameListener {
+
+    private final ArrayList<CountDownView> mViews = new ArrayList<>();
+    /**
+     * 是否有已经开始的控件还没有回调组的结束监听，有控件开始时由{@link #schedule()}设置。
+     */
+    private boolean mFinishPending;
+    private CountDownView.OnFinishListener mOnFinishListener;
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+    /**
+     * 休眠结束后醒来更新所有控件。
+     */
+    private final Runnable mWakeUp = new Runnable() {
+        @Override
+        public void run() {
+            onFrame(CountDownClock.TIME_SOURCE.now());
+            schedule();
+        }
+    };
+    /**
+     * 控件不是在帧回调中结束时(例如被点击或者被单独取消)，在控件自己的结束监听回调之后再回调组的结束监听。
+     */
+    private final Runnable mFinish = new Runnable() {
+        @Override
+        public void run() {
+            if (!isStarted()) {
+                dispatchFinish();
+            }
+        }
+    };
+
+    /**
+     * 添加控件到组中，控件不能同时属于多个组。
+     *
+     * @param views 要添加的控件。
+     */
+    public CountDownGroup add(CountDownView... views) {
+        for (CountDownView view : views) {
+            if (view.getGroup() != null && view.getGroup() != this) {
+                throw new IllegalStateException("The countDownView already belongs to another group!");
+            }
+            if (!mViews.contains(view)) {
+                mViews.add(view);
+                view.setGroup(this);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * 将控件从组中移除，移除后控件会重新单独注册到时钟上继续倒计时。
+     *
+     * @param view 要移除的控件。
+     */
+    public CountDownGroup remove(CountDownView view) {
+        if (mViews.remove(view)) {
+            view.setGroup(null);
+            schedule();
+        }
+        return this;
+    }
+
+    /**
+     * 使用同一个时间作为起点开始组中所有控件的倒计时，已经开始的控件会从头开始。
+     */
+    public void start() {
+        long now = CountDownClock.TIME_SOURCE.now();
+        for (int i = 0; i < mViews.size(); i++) {
+            mViews.get(i).restartAt(now);
+        }
+        schedule();
+    }
+
+    /**
+     * 使用同一个时间暂停组中所有的控件。
+     */
+    public void pause() {
+        long now = CountDownClock.TIME_SOURCE.now();
+        for (int i = 0; i < mViews.size(); i++) {
+            mViews.get(i).pauseAt(now);
+        }
+        schedule();
+    }
+
+    /**
+     * 使用同一个时间恢复组中所有被暂停的控件。
+     */
+    public void resume() {
+        long now = CountDownClock.TIME_SOURCE.now();
+        for (int i = 0; i < mViews.size(); i++) {
+            mViews.get(i).resumeAt(now);
+        }
+        schedule();
+    }
+
+    /**
+     * 取消组中所有控件的倒计时，不会回调任何结束监听。单独取消组中的每个控件则会在最后一个控件被取消后回调组的结束监听。
+     */
+    public void cancel() {
+        for (int i = 0; i < mViews.size(); i++) {
+            mViews.get(i).cancel();
+        }
+        //每个控件取消时都会重新调度组，全部取消之后再清除标记，避免最后一个控件取消时回调组的结束监听。
+        mFinishPending = false;
+        schedule();
+    }
+
+    /**
+     * 判断组是否已经开始并且还有没结束的控件。
+     */
+    public boolean isStarted() {
+        for (int i = 0; i < mViews.size(); i++) {
+            if (mViews.get(i).isStarted()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 设置组的结束监听，组中所有控件都结束后回调。
+     */
+    public CountDownGroup setOnFinishListener(@Nullable CountDownView.OnFinishListener listener) {
+        mOnFinishListener = listener;
+        return this;
+    }
+
+    /**
+     * 根据组中控件的状态决定是注册到时钟上逐帧刷新，还是休眠到最早的一个控件需要更新时，或者什么也不做。
+     */
+    void schedule() {
+        CountDownClock clock = CountDownClock.getInstance();
+        mHandler.removeCallbacks(mWakeUp);
+        mHandler.removeCallbacks(mFinish);
+        long now = CountDownClock.TIME_SOURCE.now();
+        long delay = Long.MAX_VALUE;
+        boolean sleep = true;
+        boolean hasStarted = false;
+        for (int i = 0; i < mViews.size(); i++) {
+            CountDownView view = mViews.get(i);
+            if (!view.isStarted()) {
+                continue;
+            }
+            mFinishPending = true;
+            hasStarted = true;
+            if (view.isPaused()) {
+                continue;
+            }
+            long viewDelay = view.getGroupSleepDelay(now);
+            if (viewDelay < 0) {
+                sleep = false;
+            } else {
+                delay = Math.min(delay, viewDelay);
+            }
+        }
+        if (!hasStarted && mFinishPending) {
+            //最后一个控件不是在帧回调中结束的，不会再有帧回调来回调组的结束监听。
+            mHandler.post(mFinish);
+        }
+        if (!sleep) {
+            clock.register(this);
+        } else {
+            clock.unregister(this);
+            if (delay != Long.MAX_VALUE) {
+                mHandler.postDelayed(mWakeUp, delay);
+            }
+        }
+    }
+
+    @Override
+    public void onFrame(long now) {
+        boolean hasStarted = false;
+        for (int i = 0; i < mViews.size(); i++) {
+            CountDownView view = mViews.get(i);
+            view.onGroupFrame(now);
+            hasStarted |= view.isStarted();
+        }
+        if (!hasStarted) {
+            CountDownClock.getInstance().unregister(this);
+            mHandler.removeCallbacks(mWakeUp);
+            dispatchFinish();
+        }
+    }
+
+    /**
+     * 如果有已经开始的控件还没有回调组的结束监听则回调一次。
+     */
+    private void dispatchFinish() {
+        if (mFinishPending) {
+            mFinishPending = false;
+            if (mOnFinishListener != null) {
+                mOnFinishListener.onFinish();
+            }
+        }
+    }
+}
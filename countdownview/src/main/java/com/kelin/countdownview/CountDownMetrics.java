@@ -0,0 +1,252 @@
+package com.kelin.countdownview;
+
+/**
+ * <strong>描述: </strong> 单次倒计时的计时与绘制指标，包括期望与实际收到的刻度数、绘制的帧数、刻度的抖动以及结束时间的偏差。
+ * <p>每个控件只持有一个实例，每次开始倒计时都会被重置，所以在{@link OnMetricsListener#onMetrics(CountDownMetrics)}
+ * 中如果需要保存数据请自行拷贝，不要持有这个对象。这个类不依赖任何Android的API。
+ * <p><strong>创建人: </strong> kelin
+ * <p><strong>版本: </strong> v 1.0.0
+ */
+public final class CountDownMetrics {
+
+    /**
+     * 平滑模式下期望的帧间隔，按照60帧每秒计算，单位为毫秒。
+     */
+    private static final float NOMINAL_FRAME_INTERVAL = 1000F / 60;
+
+    /**
+     * 请求的时长。
+     */
+    private long mRequestedMillis;
+    /**
+     * 刻度模式下的刻度数以及刻度所对应的时长，刻度的边界为剩余时间乘以刻度数除以时长的整数部分发生变化的时间，
+     * 不能用截断后的刻度间隔代替，否则误差会随着刻度累积。刻度数为0表示平滑模式。
+     */
+    private long mStepCount;
+    private long mStepDuration;
+    /**
+     * 开始的时间。
+     */
+    private long mStartTime;
+    /**
+     * 暂停的总时长。
+     */
+    private long mPausedMillis;
+    /**
+     * 最后一次暂停的时间，跳转时会把已经暂停的时长结算到{@link #mPausedMillis}中并从跳转的时间重新开始计算。
+     */
+    private long mPauseTime;
+    private boolean mPaused;
+    /**
+     * 期望收到的刻度数按照观察的区间分段统计：开始观察时(例如按照截止时间显示时)之前以及跳转跨过的刻度不会被计入。
+     * 这里记录已经结束的区间中期望收到的刻度数，以及当前区间开始时已经流逝的时间。
+     */
+    private long mScheduledTicks;
+    private long mSegmentStartMillis;
+    /**
+     * 上一次收到刻度的时间。
+     */
+    private long mLastTickTime;
+    /**
+     * 从开始到结束实际经过的时长，不包含暂停的时间。
+     */
+    private long mActualMillis;
+    private long mTicksDelivered;
+    private long mFramesDrawn;
+    private long mMaxJitter;
+    private long mTotalJitter;
+    private long mJitterSamples;
+    /**
+     * 倒计时是否是自然结束的，而不是被点击等操作提前结束的。
+     */
+    private boolean mCompleted;
+
+    /**
+     * @param startTime    倒计时的开始时间，按照截止时间显示时会早于当前时间，只用来计算实际经过的时长。
+     * @param now          开始观察的时间，抖动以及期望收到的刻度数都从这个时间开始统计。
+     * @param stepCount    刻度模式下的刻度数，0表示平滑模式。
+     * @param stepDuration 刻度数所对应的时长。
+     */
+    void onStart(long startTime, long now, long millisInFuture, long stepCount, long stepDuration) {
+        mRequestedMillis = millisInFuture;
+        mStepCount = stepDuration > 0 ? stepCount : 0;
+        mStepDuration = stepDuration;
+        mStartTime = startTime;
+        mLastTickTime = now;
+        mPausedMillis = 0;
+        mPauseTime = 0;
+        mPaused = false;
+        mScheduledTicks = 0;
+        mSegmentStartMillis = Math.min(Math.max(now - startTime, 0), millisInFuture);
+        mActualMillis = 0;
+        mTicksDelivered = 0;
+        mFramesDrawn = 0;
+        mMaxJitter = 0;
+        mTotalJitter = 0;
+        mJitterSamples = 0;
+        mCompleted = false;
+    }
+
+    void onPause(long now) {
+        mPauseTime = now;
+        mPaused = true;
+    }
+
+    void onResume(long now) {
+        mPausedMillis += now - mPauseTime;
+        mPaused = false;
+        mLastTickTime = now;
+    }
+
+    /**
+     * 跳转后重新设置起点，使已经流逝的时间等于跳转后的位置。
+     *
+     * @param now     当前时间。
+     * @param elapsed 跳转后已经流逝的时间。
+     */
+    void onSeek(long now, long elapsed) {
+        if (mPaused) {
+            //结算已经暂停的时长，恢复时只需要再加上跳转之后暂停的时长。
+            mPausedMillis += now - mPauseTime;
+            mPauseTime = now;
+        }
+        mScheduledTicks += countScheduled(mSegmentStartMillis, Math.min(now - mStartTime - mPausedMillis, mRequestedMillis));
+        mSegmentStartMillis = elapsed;
+        mStartTime = now - elapsed - mPausedMillis;
+        mLastTickTime = now;
+    }
+
+    /**
+     * 每收到一帧调用一次。
+     *
+     * @param now     本帧的时间。
+     * @param changed        本帧的进度是否发生了变化。
+     * @param millisSinceStep 刻度模式下收到刻度的时间与刻度真正到达的时间之差，取自{@link CountDownEngine#getMillisSinceStep(long)}。
+     */
+    void onTick(long now, boolean changed, long millisSinceStep) {
+        long jitter;
+        if (mStepCount > 0) {
+            if (!changed) {
+                return;
+            }
+            jitter = millisSinceStep;
+        } else {
+            //平滑模式下的抖动为帧间隔超出期望帧间隔的部分。
+            jitter = Math.max((long) (now - mLastTickTime - NOMINAL_FRAME_INTERVAL), 0);
+        }
+        mLastTickTime = now;
+        mTicksDelivered++;
+        mTotalJitter += jitter;
+        mJitterSamples++;
+        if (jitter > mMaxJitter) {
+            mMaxJitter = jitter;
+        }
+    }
+
+    void onFrameDrawn() {
+        mFramesDrawn++;
+    }
+
+    void onFinish(long now, boolean completed) {
+        mActualMillis = now - mStartTime - mPausedMillis;
+        mCompleted = completed;
+    }
+
+    /**
+     * 获取期望收到的刻度数。刻度模式下为已经走过的刻度数，平滑模式下为按照60帧每秒计算的帧数。
+     */
+    public long getTicksScheduled() {
+        return mScheduledTicks + countScheduled(mSegmentStartMillis, Math.min(mActualMillis, mRequestedMillis));
+    }
+
+    /**
+     * 计算已经流逝的时间从from增加到to的过程中期望收到的刻度数，刻度模式下为经过的刻度边界数。
+     */
+    private long countScheduled(long from, long to) {
+        if (to <= from) {
+            return 0;
+        }
+        if (mStepCount > 0) {
+            return (mRequestedMillis - from) * mStepCount / mStepDuration - (mRequestedMillis - to) * mStepCount / mStepDuration;
+        }
+        return (long) (to / NOMINAL_FRAME_INTERVAL) - (long) (from / NOMINAL_FRAME_INTERVAL);
+    }
+
+    /**
+     * 获取实际收到的刻度数。刻度模式下为进度发生变化的次数，平滑模式下为收到的帧数。
+     */
+    public long getTicksDelivered() {
+        return mTicksDelivered;
+    }
+
+    /**
+     * 获取实际绘制的帧数。
+     */
+    public long getFramesDrawn() {
+        return mFramesDrawn;
+    }
+
+    /**
+     * 获取刻度抖动的最大值，单位为毫秒。
+     */
+    public long getMaxJitterMillis() {
+        return mMaxJitter;
+    }
+
+    /**
+     * 获取刻度抖动的平均值，单位为毫秒。
+     */
+    public float getMeanJitterMillis() {
+        return mJitterSamples == 0 ? 0 : (float) mTotalJitter / mJitterSamples;
+    }
+
+    /**
+     * 获取请求的时长，单位为毫秒。
+     */
+    public long getRequestedMillis() {
+        return mRequestedMillis;
+    }
+
+    /**
+     * 获取从开始到回调结束监听实际经过的时长，不包含暂停的时间，单位为毫秒。
+     */
+    public long getActualMillis() {
+        return mActualMillis;
+    }
+
+    /**
+     * 获取结束监听回调的延迟，也就是实际时长与请求时长之差，单位为毫秒。提前结束时为负数。
+     */
+    public long getFinishLatencyMillis() {
+        return mActualMillis - mRequestedMillis;
+    }
+
+    /**
+     * 判断倒计时是否是自然结束的，如果是被点击提前结束的返回false。
+     */
+    public boolean isCompleted() {
+        return mCompleted;
+    }
+
+    @Override
+    public String toString() {
+        return "CountDownMetrics{" +
+                "ticks=" + mTicksDelivered + "/" + getTicksScheduled() +
+                ", framesDrawn=" + mFramesDrawn +
+                ", maxJitter=" + mMaxJitter +
+                ", meanJitter=" + getMeanJitterMillis() +
+                ", requested=" + mRequestedMillis +
+                ", actual=" + mActualMillis +
+                ", completed=" + mCompleted +
+                '}';
+    }
+
+    public interface OnMetricsListener {
+        /**
+         * 倒计时结束后回调。
+         *
+         * @param metrics 本次倒计时的指标，该对象会被复用，不要持有它。
+         */
+        void onMetrics(CountDownMetrics metrics);
+    }
+}
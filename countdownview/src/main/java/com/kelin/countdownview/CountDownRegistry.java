@@ -0,0 +1,164 @@
+package com.kelin.countdownview;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.IntRange;
+import android.support.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <strong>描述: </strong> 进程内共享的截止时间注册表，适合同时跟踪成千上万个倒计时，例如商品列表中每个商品的截止时间。
+ * <p>所有截止时间都保存在一个分层时间轮中，添加和取消都是O(1)的，主线程中最多只有一条等待中的消息，它只在下一批截止时间到期时醒来，
+ * 同一个刻度内到期的截止时间会在同一条消息中批量回调。不在屏幕上的倒计时只占用时间轮中的一个位置，需要显示时可以通过
+ * {@link CountDownView#attachTo(CountDownDeadline)}让控件绘制它的进度。该类只能在主线程中使用。
+ * <p><strong>创建人: </strong> kelin
+ * <p><strong>版本: </strong> v 1.0.0
+ */
+public final class CountDownRegistry {
+
+    /**
+     * 时间轮每个刻度的时长，单位为毫秒，截止时间最多会晚一个刻度回调。
+     */
+    private static final long TICK_MILLIS = 16;
+
+    private static CountDownRegistry sInstance;
+
+    private final TimingWheel<CountDownDeadline> mWheel = new TimingWheel<>(TICK_MILLIS, CountDownClock.TIME_SOURCE.now());
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+    /**
+     * 本批到期的截止时间，每次回调后清空复用。
+     */
+    private final ArrayList<CountDownDeadline> mExpired = new ArrayList<>();
+    private final Runnable mAdvance = new Runnable() {
+        @Override
+        public void run() {
+            mScheduledTime = Long.MAX_VALUE;
+            advance();
+        }
+    };
+    /**
+     * 已经投递的消息的执行时间，{@link Long#MAX_VALUE}表示没有投递消息。
+     */
+    private long mScheduledTime = Long.MAX_VALUE;
+    private final CountDownTrace.Counter mDeadlinesCounter = new CountDownTrace.Counter("CountDownRegistry#deadlines");
+    private OnExpiredListener mOnExpiredListener;
+
+    private CountDownRegistry() {
+    }
+
+    /**
+     * 获取共享的实例，必须在主线程中调用。
+     */
+    public static CountDownRegistry getInstance() {
+        if (sInstance == null) {
+            sInstance = new CountDownRegistry();
+        }
+        return sInstance;
+    }
+
+    /**
+     * 添加一个从现在开始的倒计时。
+     *
+     * @param duration 时长，单位为毫秒。
+     * @param listener 到期时的监听。
+     */
+    public CountDownDeadline add(@IntRange(from = 1) long duration, @Nullable CountDownView.OnFinishListener listener) {
+        return add(duration, duration, listener);
+    }
+
+    /**
+     * 添加一个已经进行了一段时间的倒计时，例如根据服务器返回的结束时间计算出的剩余时间。
+     *
+     * @param millisLeft 剩余的时长，单位为毫秒，小于等于0时会在下一个刻度回调。
+     * @param duration   倒计时的总时长，单位为毫秒，用来计算进度条的进度。
+     * @param listener   到期时的监听。
+     */
+    public CountDownDeadline add(long millisLeft, @IntRange(from = 1) long duration, @Nullable CountDownView.OnFinishListener listener) {
+        if (duration <= 0) {
+            throw new IllegalArgumentException("the duration must be > 0!");
+        }
+        CountDownDeadline deadline = new CountDownDeadline(this, duration, listener);
+        mWheel.add(deadline, CountDownClock.TIME_SOURCE.now() + Math.min(millisLeft, duration));
+        schedule();
+        return deadline;
+    }
+
+    /**
+     * 取消一个截止时间，不会回调它的结束监听。
+     *
+     * @return 如果截止时间还在等待到期返回true，否则返回false。
+     */
+    public boolean cancel(CountDownDeadline deadline) {
+        //取消后不需要重新调度，多余的一次唤醒会在发现没有到期的截止时间后重新计算。
+        return mWheel.remove(deadline);
+    }
+
+    /**
+     * 获取还在等待到期的截止时间的数量。
+     */
+    public int size() {
+        return mWheel.size();
+    }
+
+    /**
+     * 设置批量到期的监听，每一批到期的截止时间在各自的结束监听都回调完之后一起回调一次。
+     */
+    public void setOnExpiredListener(@Nullable OnExpiredListener listener) {
+        mOnExpiredListener = listener;
+    }
+
+    private void advance() {
+        boolean trace = CountDownTrace.beginSection("CountDownRegistry#advance");
+        try {
+            dispatchExpired();
+        } finally {
+            if (trace) {
+                CountDownTrace.endSection();
+            }
+        }
+        mDeadlinesCounter.set(mWheel.size());
+        schedule();
+    }
+
+    private void dispatchExpired() {
+        mWheel.advance(CountDownClock.TIME_SOURCE.now(), mExpired);
+        if (!mExpired.isEmpty()) {
+            try {
+                for (int i = 0, n = mExpired.size(); i < n; i++) {
+                    mExpired.get(i).dispatchExpired();
+                }
+                if (mOnExpiredListener != null) {
+                    mOnExpiredListener.onExpired(mExpired);
+                }
+            } finally {
+                mExpired.clear();
+            }
+        }
+    }
+
+    /**
+     * 确保在下一批截止时间到期时有一条消息等待执行。
+     */
+    private void schedule() {
+        long wakeUpTime = mWheel.getNextWakeUpTime();
+        if (wakeUpTime == Long.MAX_VALUE) {
+            mHandler.removeCallbacks(mAdvance);
+            mScheduledTime = Long.MAX_VALUE;
+        } else if (wakeUpTime < mScheduledTime) {
+            mHandler.removeCallbacks(mAdvance);
+            mHandler.postDelayed(mAdvance, Math.max(wakeUpTime - CountDownClock.TIME_SOURCE.now(), 0));
+            mScheduledTime = wakeUpTime;
+        }
+    }
+
+    public interface OnExpiredListener {
+        /**
+         * 一批截止时间到期时回调。
+         *
+         * @param deadlines 本批到期的截止时间，列表会被复用，不能在回调之外持有。
+         */
+        void onExpired(List<CountDownDeadline> deadlines);
+    }
+}
@@ -0,0 +1,194 @@
+package com.kelin.countdownview;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.RectF;
+import android.support.annotation.ColorInt;
+import android.support.annotation.IntRange;
+
+/**
+ * <strong>描述: </strong> {@link CountDownView}的内圈进度条，每个内圈都有自己的时长、颜色、宽度以及进度条模式。
+ * <p>内圈由所在的{@link CountDownView}在同一次绘制中画在主进度条的内侧，与主进度条共用同一个时钟，开始、暂停、恢复以及取消都与主进度条同步，
+ * 所以显示多层嵌套的倒计时(例如总时长以及每一步的时长)时不再需要叠加多个控件，背景圆也只会被绘制一次。
+ * <p><strong>创建人: </strong> kelin
+ * <p><strong>版本: </strong> v 1.0.0
+ */
+public final class CountDownRing {
+
+    private static final int DEFAULT_PROGRESS_BAR_COLOR = 0xFFFF0000;
+
+    private final CountDownEngine mEngine = new CountDownEngine(CountDownClock.TIME_SOURCE);
+    /**
+     * 绘制进度条时需要用到的矩形。
+     */
+    private final RectF mRect = new RectF();
+    /**
+     * 用来画进度条的画笔，第一次绘制时才会创建。
+     */
+    private Paint mPaint;
+    private boolean mPaintDirty = true;
+    private int mProgressBarColor = DEFAULT_PROGRESS_BAR_COLOR;
+    private int mProgressBarWidth;
+    private boolean mRoundStrokeCap;
+    private CountDownView.OnFinishListener mOnFinishListener;
+    /**
+     * 内圈所在的控件。
+     */
+    private CountDownView mHost;
+
+    public CountDownRing(Context context) {
+        mProgressBarWidth = (int) (2 * context.getResources().getDisplayMetrics().density + 0.5f);
+    }
+
+    /**
+     * 设置内圈的时长,必须在{@link CountDownView#start()}方法被调用前调用。
+     *
+     * @param duration 时长，单位为毫秒。
+     */
+    public CountDownRing setDuration(@IntRange(from = 1) long duration) {
+        checkIsStartedAndThrow();
+        mEngine.setDuration(duration);
+        return this;
+    }
+
+    public long getDuration() {
+        return mEngine.getDuration();
+    }
+
+    /**
+     * 设置进度条模式,必须在{@link CountDownView#start()}方法被调用前调用。
+     *
+     * @param progressMode 要设置的模式。分别为：{@link CountDownView#CLOCKWISE_FROM_EXIST}、{@link CountDownView#CLOCKWISE_FROM_NOTHING}、{@link CountDownView#ANTICLOCKWISE_FROM_EXIST}、{@link CountDownView#ANTICLOCKWISE_FROM_NOTHING}。
+     */
+    public CountDownRing setProgressBarMode(@CountDownView.ProgressMode int progressMode) {
+        checkIsStartedAndThrow();
+        mEngine.setProgressMode(progressMode);
+        return this;
+    }
+
+    /**
+     * 设置是否使用平滑进度模式,必须在{@link CountDownView#start()}方法被调用前调用。
+     */
+    public CountDownRing setSmoothProgress(boolean smoothProgress) {
+        checkIsStartedAndThrow();
+        mEngine.setSmooth(smoothProgress);
+        return this;
+    }
+
+    public CountDownRing setProgressBarColor(@ColorInt int color) {
+        mProgressBarColor = color;
+        invalidatePaint();
+        return this;
+    }
+
+    /**
+     * 设置进度条的宽度,必须在{@link CountDownView#start()}方法被调用前调用。
+     *
+     * @param widthPx 进度条的宽度，单位为px。
+     */
+    public CountDownRing setProgressBarWidth(int widthPx) {
+        checkIsStartedAndThrow();
+        mProgressBarWidth = widthPx;
+        invalidatePaint();
+        if (mHost != null) {
+            mHost.onGeometryChanged();
+        }
+        return this;
+    }
+
+    public int getProgressBarWidth() {
+        return mProgressBarWidth;
+    }
+
+    public CountDownRing setRoundStrokeCap(boolean round) {
+        mRoundStrokeCap = round;
+        invalidatePaint();
+        return this;
+    }
+
+    /**
+     * 设置内圈结束的监听，所在控件的倒计时先结束或被取消时不会回调。
+     */
+    public CountDownRing setOnFinishListener(CountDownView.OnFinishListener listener) {
+        mOnFinishListener = listener;
+        return this;
+    }
+
+    /**
+     * 在所在控件倒计时的过程中单独重新开始这个内圈，例如进入下一步时重新开始每一步的倒计时。
+     */
+    public void restart() {
+        if (mHost == null || !mHost.isStarted()) {
+            throw new IllegalStateException("The host countDownView is not started!");
+        }
+        mHost.restartRing(this);
+    }
+
+    /**
+     * 判断内圈的倒计时是否已经开始，暂停状态也被认为是已经开始。
+     */
+    public boolean isStarted() {
+        return mEngine.isStarted();
+    }
+
+    public long getRemainingMillis() {
+        return mEngine.getRemainingMillis();
+    }
+
+    private void checkIsStartedAndThrow() {
+        if (isStarted()) {
+            throw new IllegalStateException("The countDownRing is started，You must call before the start method call.");
+        }
+    }
+
+    private void invalidatePaint() {
+        mPaintDirty = true;
+        if (mHost != null) {
+            mHost.invalidate();
+        }
+    }
+
+    CountDownView getHost() {
+        return mHost;
+    }
+
+    void setHost(CountDownView host) {
+        mHost = host;
+    }
+
+    CountDownEngine getEngine() {
+        return mEngine;
+    }
+
+    /**
+     * 把结束的消息回调给监听。
+     */
+    void dispatchFinish() {
+        if (mOnFinishListener != null) {
+            mOnFinishListener.onFinish();
+        }
+    }
+
+    /**
+     * 以(cx, cy)为圆心绘制进度条。
+     *
+     * @param radius 进度条中线所在的半径。
+     */
+    void draw(Canvas canvas, float cx, float cy, float radius) {
+        if (mPaintDirty) {
+            if (mPaint == null) {
+                mPaint = CountDownDrawable.createPaint(Paint.Style.STROKE, null);
+            }
+            mPaint.setColor(mProgressBarColor);
+            mPaint.setStrokeWidth(mProgressBarWidth);
+            mPaint.setStrokeCap(mRoundStrokeCap ? Paint.Cap.ROUND : Paint.Cap.BUTT);
+            mPaintDirty = false;
+        }
+        mRect.left = cx - radius;
+        mRect.top = cy - radius;
+        mRect.right = cx + radius;
+        mRect.bottom = cy + radius;
+        canvas.drawArc(mRect, -90, mEngine.getSweep(), false, mPaint);
+    }
+}
@@ -0,0 +1,252 @@
+package com.kelin.countdownview;
+
+import android.content.Context;
+import android.content.res.TypedArray;
+import android.graphics.Paint;
+import android.support.annotation.ColorInt;
+import android.support.annotation.FloatRange;
+import android.support.annotation.Nullable;
+import android.support.annotation.StyleRes;
+import android.text.TextPaint;
+import android.util.AttributeSet;
+
+/**
+ * <strong>描述: </strong> 不可变的倒计时样式，包含颜色、尺寸、进度条模式等外观相关的配置。
+ * <p>样式在创建时就生成好了绘制需要的画笔，多个{@link CountDownView}或{@link CountDownDrawable}使用同一个样式时共享这些画笔，
+ * 列表中显示成百上千个外观相同的倒计时也只会创建一份画笔。使用样式后如果再单独修改某个控件的外观，该控件会拷贝一份自己的配置，
+ * 不会影响其他使用该样式的控件。
+ * <p><strong>创建人: </strong> kelin
+ * <p><strong>版本: </strong> v 1.0.0
+ */
+public final class CountDownStyle {
+
+    private static final int DEFAULT_CIRCLE_COLOR = 0xFF666666;
+    private static final int DEFAULT_PROGRESS_BAR_COLOR = 0xFF66BEE0;
+    private static final int DEFAULT_TEXT_COLOR = 0xFFFFFFFF;
+
+    private final int mCircleColor;
+    private final int mProgressBarColor;
+    private final int mProgressBarWidth;
+    private final boolean mRoundStrokeCap;
+    private final int mTextColor;
+    private final float mTextSize;
+    private final int mProgressBarMode;
+    private final float mProgressMax;
+    private final int mRemainingTextMode;
+    /**
+     * 共享的画笔，使用者不能修改。
+     */
+    private final Paint mCirclePaint;
+    private final Paint mProgressBarPaint;
+    private final TextPaint mTextPaint;
+
+    private CountDownStyle(Builder builder) {
+        mCircleColor = builder.mCircleColor;
+        mProgressBarColor = builder.mProgressBarColor;
+        mProgressBarWidth = builder.mProgressBarWidth;
+        mRoundStrokeCap = builder.mRoundStrokeCap;
+        mTextColor = builder.mTextColor;
+        mTextSize = builder.mTextSize;
+        mProgressBarMode = builder.mProgressBarMode;
+        mProgressMax = builder.mProgressMax;
+        mRemainingTextMode = builder.mRemainingTextMode;
+        mCirclePaint = CountDownDrawable.createPaint(Paint.Style.FILL, null);
+        mCirclePaint.setColor(mCircleColor);
+        mProgressBarPaint = CountDownDrawable.createPaint(Paint.Style.STROKE, null);
+        mProgressBarPaint.setColor(mProgressBarColor);
+        mProgressBarPaint.setStrokeWidth(mProgressBarWidth);
+        mProgressBarPaint.setStrokeCap(mRoundStrokeCap ? Paint.Cap.ROUND : Paint.Cap.BUTT);
+        mTextPaint = new TextPaint(CountDownDrawable.createPaint(null, Paint.Align.CENTER));
+        mTextPaint.setColor(mTextColor);
+        mTextPaint.setTextSize(mTextSize);
+    }
+
+    /**
+     * 从布局属性中创建样式，只会读取外观相关的属性，文字内容、时长等属性会被忽略。
+     *
+     * @param attrs 布局中{@link CountDownView}的属性。
+     */
+    public static CountDownStyle fromAttributes(Context context, @Nullable AttributeSet attrs) {
+        return from(context, context.obtainStyledAttributes(attrs, R.styleable.CountDownView));
+    }
+
+    /**
+     * 从样式资源中创建样式，样式资源中可以使用{@link CountDownView}的所有自定义属性，只会读取外观相关的属性。
+     *
+     * @param styleRes 样式资源的ID。
+     */
+    public static CountDownStyle fromStyle(Context context, @StyleRes int styleRes) {
+        return from(context, context.obtainStyledAttributes(styleRes, R.styleable.CountDownView));
+    }
+
+    private static CountDownStyle from(Context context, TypedArray ta) {
+        Builder builder = new Builder(context);
+        try {
+            builder.setCircleColor(ta.getColor(R.styleable.CountDownView_backgroundColor, builder.mCircleColor))
+                    .setProgressBarColor(ta.getColor(R.styleable.CountDownView_progressBarColor, builder.mProgressBarColor))
+                    .setProgressBarWidth((int) (ta.getDimension(R.styleable.CountDownView_progressBarWidth, builder.mProgressBarWidth) + 0.9))
+                    .setRoundStrokeCap(ta.getBoolean(R.styleable.CountDownView_roundStrokeCap, false))
+                    .setTextColor(ta.getColor(R.styleable.CountDownView_android_textColor, builder.mTextColor))
+                    .setTextSize(ta.getDimension(R.styleable.CountDownView_android_textSize, builder.mTextSize))
+                    .setProgressBarMode(ta.getInt(R.styleable.CountDownView_progressBarMode, builder.mProgressBarMode))
+                    .setProgressMax(ta.getFloat(R.styleable.CountDownView_progressMax, 1))
+                    .setRemainingTextMode(ta.getInt(R.styleable.CountDownView_remainingTextMode, CountDownView.REMAINING_TEXT_NONE));
+        } finally {
+            ta.recycle();
+        }
+        return builder.build();
+    }
+
+    public int getCircleColor() {
+        return mCircleColor;
+    }
+
+    public int getProgressBarColor() {
+        return mProgressBarColor;
+    }
+
+    public int getProgressBarWidth() {
+        return mProgressBarWidth;
+    }
+
+    public boolean isRoundStrokeCap() {
+        return mRoundStrokeCap;
+    }
+
+    public int getTextColor() {
+        return mTextColor;
+    }
+
+    public float getTextSize() {
+        return mTextSize;
+    }
+
+    public int getProgressBarMode() {
+        return mProgressBarMode;
+    }
+
+    public float getProgressMax() {
+        return mProgressMax;
+    }
+
+    public int getRemainingTextMode() {
+        return mRemainingTextMode;
+    }
+
+    Paint getCirclePaint() {
+        return mCirclePaint;
+    }
+
+    Paint getProgressBarPaint() {
+        return mProgressBarPaint;
+    }
+
+    TextPaint getTextPaint() {
+        return mTextPaint;
+    }
+
+    /**
+     * 基于当前样式创建一个构建者，用来派生新的样式。
+     */
+    public Builder newBuilder() {
+        Builder builder = new Builder();
+        builder.mCircleColor = mCircleColor;
+        builder.mProgressBarColor = mProgressBarColor;
+        builder.mProgressBarWidth = mProgressBarWidth;
+        builder.mRoundStrokeCap = mRoundStrokeCap;
+        builder.mTextColor = mTextColor;
+        builder.mTextSize = mTextSize;
+        builder.mProgressBarMode = mProgressBarMode;
+        builder.mProgressMax = mProgressMax;
+        builder.mRemainingTextMode = mRemainingTextMode;
+        return builder;
+    }
+
+    /**
+     * 样式的构建者，默认值与布局中不设置任何属性时一致。
+     */
+    public static final class Builder {
+        private int mCircleColor = DEFAULT_CIRCLE_COLOR;
+        private int mProgressBarColor = DEFAULT_PROGRESS_BAR_COLOR;
+        private int mProgressBarWidth;
+        private boolean mRoundStrokeCap;
+        private int mTextColor = DEFAULT_TEXT_COLOR;
+        private float mTextSize;
+        private int mProgressBarMode = CountDownEngine.CLOCKWISE_FROM_EXIST;
+        private float mProgressMax = 1;
+        private int mRemainingTextMode = CountDownView.REMAINING_TEXT_NONE;
+
+        private Builder() {
+        }
+
+        public Builder(Context context) {
+            float density = context.getResources().getDisplayMetrics().density;
+            mProgressBarWidth = (int) (2 * density + 0.5f);
+            mTextSize = (int) (0x0000_000E * context.getResources().getDisplayMetrics().scaledDensity + 0.5);
+        }
+
+        public Builder setCircleColor(@ColorInt int color) {
+            mCircleColor = color;
+            return this;
+        }
+
+        public Builder setProgressBarColor(@ColorInt int color) {
+            mProgressBarColor = color;
+            return this;
+        }
+
+        /**
+         * @param widthPx 进度条的宽度，单位为px。
+         */
+        public Builder setProgressBarWidth(int widthPx) {
+            mProgressBarWidth = widthPx;
+            return this;
+        }
+
+        public Builder setRoundStrokeCap(boolean round) {
+            mRoundStrokeCap = round;
+            return this;
+        }
+
+        public Builder setTextColor(@ColorInt int color) {
+            mTextColor = color;
+            return this;
+        }
+
+        /**
+         * @param textSizePx 字体大小，单位为px。
+         */
+        public Builder setTextSize(float textSizePx) {
+            mTextSize = textSizePx;
+            return this;
+        }
+
+        /**
+         * @param progressBarMode 进度条模式。分别为：{@link CountDownView#CLOCKWISE_FROM_EXIST}、{@link CountDownView#CLOCKWISE_FROM_NOTHING}、{@link CountDownView#ANTICLOCKWISE_FROM_EXIST}、{@link CountDownView#ANTICLOCKWISE_FROM_NOTHING}。
+         */
+        public Builder setProgressBarMode(@CountDownView.ProgressMode int progressBarMode) {
+            mProgressBarMode = progressBarMode;
+            return this;
+        }
+
+        /**
+         * @param progressMax 一个范围为：0~1的小数，表示进度条最多占整个圆的多少。
+         */
+        public Builder setProgressMax(@FloatRange(from = 0, to = 1) float progressMax) {
+            mProgressMax = progressMax;
+            return this;
+        }
+
+        /**
+         * @param mode 剩余时间文字的显示模式，分别为：{@link CountDownView#REMAINING_TEXT_NONE}、{@link CountDownView#REMAINING_TEXT_SECONDS}、{@link CountDownView#REMAINING_TEXT_CLOCK}。
+         */
+        public Builder setRemainingTextMode(@CountDownView.RemainingTextMode int mode) {
+            mRemainingTextMode = mode;
+            return this;
+        }
+
+        public CountDownStyle build() {
+            return new CountDownStyle(this);
+        }
+    }
+}
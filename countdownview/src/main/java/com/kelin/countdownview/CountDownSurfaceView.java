@@ -0,0 +1,517 @@
+package com.kelin.countdownview;
+
+import android.content.Context;
+import android.content.res.TypedArray;
+import android.graphics.Canvas;
+import android.graphics.PixelFormat;
+import android.graphics.PorterDuff;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+import android.os.Process;
+import android.support.annotation.ColorInt;
+import android.support.annotation.IntRange;
+import android.util.AttributeSet;
+import android.view.SurfaceHolder;
+import android.view.SurfaceView;
+
+/**
+ * <strong>描述: </strong> 在独立的渲染线程中绘制的倒计时控件。
+ * <p>与{@link CountDownView}使用相同的自定义属性和相同的API，但是进度的计算和绘制全部在一个专门的渲染线程中完成，
+ * 主线程只负责响应设置以及回调{@link CountDownView.OnFinishListener}，所以在启动页等主线程繁忙的场景下进度条依然可以流畅地刷新。
+ * <p>控件默认位于窗口的最上层并且背景透明，只有圆形区域会被绘制。控件不可见(Surface被销毁)时渲染线程不再绘制任何帧，
+ * 只在结束的时间点醒来一次用来回调结束监听；控件被移除后渲染线程会退出，如果重新添加时倒计时已经结束则会立即回调。
+ * <p><strong>创建人: </strong> kelin
+ * <p><strong>版本: </strong> v 1.0.0
+ */
+public class CountDownSurfaceView extends SurfaceView implements SurfaceHolder.Callback {
+
+    /**
+     * 保护{@link #mEngine}以及渲染请求的状态，持有的时间很短，主线程查询和控制倒计时不会等待渲染线程绘制。
+     */
+    private final Object mLock = new Object();
+    /**
+     * 保护{@link #mDrawable}以及Surface的状态，渲染线程在锁定画布和绘制期间持有。不能在持有{@link #mLock}时获取。
+     */
+    private final Object mDrawLock = new Object();
+    /**
+     * 负责绘制背景圆、进度条以及文字，只在持有{@link #mDrawLock}时访问。
+     */
+    private final CountDownDrawable mDrawable;
+    /**
+     * 倒计时引擎，只在持有{@link #mLock}时访问。
+     */
+    private final CountDownEngine mEngine = new CountDownEngine(CountDownClock.TIME_SOURCE);
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+    /**
+     * 在主线程中回调结束监听。
+     */
+    private final Runnable mFinishRunnable = new Runnable() {
+        @Override
+        public void run() {
+            if (mOnFinishListener != null) {
+                mOnFinishListener.onFinish();
+            }
+        }
+    };
+    private CountDownView.OnFinishListener mOnFinishListener;
+    /**
+     * 显示时长。
+     */
+    private long duration;
+    /**
+     * 是否使用平滑进度模式。
+     */
+    private boolean mSmoothProgress;
+    /**
+     * 渲染线程，只在控件依附在窗口上时存在。
+     */
+    private RenderThread mRenderThread;
+    /**
+     * Surface是否可以绘制，只在持有{@link #mDrawLock}时访问。
+     */
+    private boolean mSurfaceReady;
+    /**
+     * 是否需要在下一次渲染时强制绘制，只在持有{@link #mLock}时访问。
+     */
+    private boolean mRenderRequested = true;
+
+    public CountDownSurfaceView(Context context) {
+        this(context, null);
+    }
+
+    public CountDownSurfaceView(Context context, AttributeSet attrs) {
+        super(context, attrs);
+        setClickable(true);
+        mDrawable = new CountDownDrawable(context);
+        //共享的排版只能在主线程中绘制。
+        mDrawable.setTextLayoutShared(false);
+        TypedArray ta;
+        if (attrs != null && (ta = context.obtainStyledAttributes(attrs, R.styleable.CountDownView)) != null) {
+            mDrawable.applyAttributes(context, ta);
+            mEngine.setSweep(360 * ta.getFloat(R.styleable.CountDownView_progress, 0));
+            mDrawable.setProgress(mEngine.getSweep(), true);
+            mSmoothProgress = ta.getBoolean(R.styleable.CountDownView_smoothProgress, false);
+            setDuration(ta.getInteger(R.styleable.CountDownView_duration, 3000));
+            ta.recycle();
+        } else {
+            setDuration(3000);
+        }
+        setZOrderOnTop(true);
+        SurfaceHolder holder = getHolder();
+        holder.setFormat(PixelFormat.TRANSLUCENT);
+        holder.addCallback(this);
+    }
+
+    /**
+     * 设置进度条模式,必须在{@link #start()}方法被调用前调用。
+     *
+     * @param mProgressMode 要设置的模式。分别为：{@link CountDownView#CLOCKWISE_FROM_EXIST}、{@link CountDownView#CLOCKWISE_FROM_NOTHING}、{@link CountDownView#ANTICLOCKWISE_FROM_EXIST}、{@link CountDownView#ANTICLOCKWISE_FROM_NOTHING}。
+     */
+    public CountDownSurfaceView setProgressBarMode(@CountDownView.ProgressMode int mProgressMode) {
+        checkIsStartedAndThrow();
+        synchronized (mDrawLock) {
+            mDrawable.setProgressBarMode(mProgressMode);
+        }
+        requestRender();
+        return this;
+    }
+
+    /**
+     * 设置进度条宽度,必须在{@link #start()}方法被调用前调用。
+     *
+     * @param widthPx 要设置的宽度，单位为px。
+     */
+    public CountDownSurfaceView setProgressBarWidth(int widthPx) {
+        checkIsStartedAndThrow();
+        synchronized (mDrawLock) {
+            mDrawable.setProgressBarWidth(widthPx);
+        }
+        requestLayout();
+        requestRender();
+        return this;
+    }
+
+    /**
+     * 设置进度条颜色,必须在{@link #start()}方法被调用前调用。
+     *
+     * @param color 要设置的颜色。
+     */
+    public CountDownSurfaceView setProgressColor(@ColorInt int color) {
+        checkIsStartedAndThrow();
+        synchronized (mDrawLock) {
+            mDrawable.setProgressBarColor(color);
+        }
+        requestRender();
+        return this;
+    }
+
+    /**
+     * 设置圆形背景颜色。
+     *
+     * @param color 要设置的颜色。
+     */
+    @Override
+    public void setBackgroundColor(@ColorInt int color) {
+        synchronized (mDrawLock) {
+            mDrawable.setCircleColor(color);
+        }
+        requestRender();
+    }
+
+    /**
+     * 设置文字,必须在{@link #start()}方法被调用前调用。
+     *
+     * @param text 要设置的文字的内容。
+     */
+    public CountDownSurfaceView setText(CharSequence text) {
+        checkIsStartedAndThrow();
+        synchronized (mDrawLock) {
+            mDrawable.setText(text);
+        }
+        requestLayout();
+        requestRender();
+        return this;
+    }
+
+    /**
+     * 设置字体颜色,必须在{@link #start()}方法被调用前调用。
+     *
+     * @param color 要设置的颜色。
+     */
+    public CountDownSurfaceView setTextColor(@ColorInt int color) {
+        checkIsStartedAndThrow();
+        synchronized (mDrawLock) {
+            mDrawable.setTextColor(color);
+        }
+        requestRender();
+        return this;
+    }
+
+    /**
+     * 设置单行文字个数的最大值,必须在{@link #start()}方法被调用前调用。
+     *
+     * @param lineTextLength 要设置的单行文字个数。
+     */
+    public CountDownSurfaceView setLineTextLength(@IntRange(from = 1) int lineTextLength) {
+        checkIsStartedAndThrow();
+        synchronized (mDrawLock) {
+            if (lineTextLength > 0 && lineTextLength < mDrawable.getText().length()) {
+                mDrawable.setLineTextLength(lineTextLength);
+            }
+        }
+        requestLayout();
+        requestRender();
+        return this;
+    }
+
+    /**
+     * 设置时长，单位为毫秒,必须在{@link #start()}方法被调用前调用。
+     *
+     * @param duration 要设置的时长，可以是不足一秒的时长，也可以是几个小时。
+     */
+    public CountDownSurfaceView setDuration(@IntRange(from = 1) long duration) {
+        checkIsStartedAndThrow();
+        if (duration <= 0) {
+            throw new IllegalArgumentException("the duration must be > 0!");
+        }
+        this.duration = duration;
+        synchronized (mDrawLock) {
+            mDrawable.setRemainingMaxMillis(duration);
+        }
+        return this;
+    }
+
+    /**
+     * 设置是否使用平滑进度模式,必须在{@link #start()}方法被调用前调用。
+     *
+     * @param smoothProgress true表示使用平滑模式，false表示使用刻度模式。
+     */
+    public CountDownSurfaceView setSmoothProgress(boolean smoothProgress) {
+        checkIsStartedAndThrow();
+        this.mSmoothProgress = smoothProgress;
+        return this;
+    }
+
+    /**
+     * 设置剩余时间文字的显示模式,必须在{@link #start()}方法被调用前调用。
+     *
+     * @param mode 显示模式，分别为：{@link CountDownView#REMAINING_TEXT_NONE}、{@link CountDownView#REMAINING_TEXT_SECONDS}、{@link CountDownView#REMAINING_TEXT_CLOCK}。
+     */
+    public CountDownSurfaceView setRemainingTextMode(@CountDownView.RemainingTextMode int mode) {
+        checkIsStartedAndThrow();
+        synchronized (mDrawLock) {
+            mDrawable.setRemainingTextMode(mode);
+        }
+        requestLayout();
+        requestRender();
+        return this;
+    }
+
+    public CountDownSurfaceView setOnFinishListener(CountDownView.OnFinishListener listener) {
+        mOnFinishListener = listener;
+        return this;
+    }
+
+    protected void checkIsStartedAndThrow() {
+        if (isStarted()) {
+            throw new IllegalStateException("The countDownView is started，You must call before the start method call.");
+        }
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        int widthMode = MeasureSpec.getMode(widthMeasureSpec);
+        int heightMode = MeasureSpec.getMode(heightMeasureSpec);
+        int diameter;
+        synchronized (mDrawLock) {
+            diameter = (mDrawable.measureRadius(getPaddingLeft() + getPaddingRight(), getPaddingTop() + getPaddingBottom()) << 1) + mDrawable.getProgressBarWidth();
+        }
+        int width = widthMode != MeasureSpec.EXACTLY ? diameter : MeasureSpec.getSize(widthMeasureSpec);
+        int height = heightMode != MeasureSpec.EXACTLY ? diameter : MeasureSpec.getSize(heightMeasureSpec);
+        setMeasuredDimension(width, height);
+    }
+
+    @Override
+    public void surfaceCreated(SurfaceHolder holder) {
+        synchronized (mDrawLock) {
+            mSurfaceReady = true;
+        }
+        requestRender();
+    }
+
+    @Override
+    public void surfaceChanged(SurfaceHolder holder, int format, int width, int height) {
+        synchronized (mDrawLock) {
+            mDrawable.setBounds(0, 0, width, height);
+        }
+        requestRender();
+    }
+
+    @Override
+    public void surfaceDestroyed(SurfaceHolder holder) {
+        //渲染线程只在持有绘制锁时绘制，所以该方法返回后不会再有任何绘制。
+        synchronized (mDrawLock) {
+            mSurfaceReady = false;
+            mDrawable.releaseStaticLayer();
+        }
+        requestRender();
+    }
+
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        mRenderThread = new RenderThread();
+        mRenderThread.start();
+        requestRender();
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        mRenderThread.quit();
+        mRenderThread = null;
+        mMainHandler.removeCallbacks(mFinishRunnable);
+    }
+
+    public void start() {
+        int progressMode;
+        long progressMax;
+        synchronized (mDrawLock) {
+            progressMode = mDrawable.getProgressBarMode();
+            progressMax = mDrawable.getProgressMax();
+        }
+        synchronized (mLock) {
+            if (mEngine.isStarted()) {
+                throw new IllegalStateException("The countdown has begun!");
+            }
+            mEngine.setDuration(duration)
+                    .setProgressMode(progressMode)
+                    .setProgressMax(progressMax)
+                    .setSmooth(mSmoothProgress)
+                    .start();
+        }
+        requestRender();
+    }
+
+    /**
+     * 暂停倒计时，剩余的时间会被保留，调用{@link #resume()}后从暂停的位置继续。如果倒计时没有开始或已经暂停则什么也不做。
+     */
+    public void pause() {
+        synchronized (mLock) {
+            mEngine.pause();
+        }
+        requestRender();
+    }
+
+    /**
+     * 从暂停的位置继续倒计时。如果倒计时没有被暂停则什么也不做。
+     */
+    public void resume() {
+        synchronized (mLock) {
+            mEngine.resume();
+        }
+        requestRender();
+    }
+
+    /**
+     * 取消倒计时，不会回调{@link CountDownView.OnFinishListener#onFinish()}，进度保持在取消时的位置。
+     */
+    public void cancel() {
+        synchronized (mLock) {
+            mEngine.cancel();
+        }
+        mMainHandler.removeCallbacks(mFinishRunnable);
+        requestRender();
+    }
+
+    /**
+     * 判断倒计时是否已经开始，暂停状态也被认为是已经开始。
+     */
+    public boolean isStarted() {
+        synchronized (mLock) {
+            return mEngine.isStarted();
+        }
+    }
+
+    /**
+     * 判断倒计时是否处于暂停状态。
+     */
+    public boolean isPaused() {
+        synchronized (mLock) {
+            return mEngine.isPaused();
+        }
+    }
+
+    @Override
+    public boolean performClick() {
+        boolean started;
+        synchronized (mLock) {
+            started = mEngine.isStarted();
+            if (started) {
+                mEngine.finish();
+            }
+        }
+        if (started) {
+            requestRender();
+            mMainHandler.removeCallbacks(mFinishRunnable);
+            mFinishRunnable.run();
+        }
+        return super.performClick();
+    }
+
+    /**
+     * 请求渲染线程强制绘制一帧并重新决定是否需要逐帧刷新。
+     */
+    private void requestRender() {
+        synchronized (mLock) {
+            mRenderRequested = true;
+        }
+        if (mRenderThread != null) {
+            mRenderThread.post();
+        }
+    }
+
+    /**
+     * 渲染线程，拥有自己的{@link CountDownClock}，跟随屏幕刷新逐帧更新进度并直接绘制到Surface上。
+     */
+    private class RenderThread extends HandlerThread implements CountDownClock.OnFrameListener, Runnable {
+
+        private Handler mHandler;
+        /**
+         * 绑定到渲染线程的时钟，在渲染线程中创建。
+         */
+        private CountDownClock mClock;
+        /**
+         * 在{@link #mLock}中从引擎拷贝出来的进度快照，只在渲染线程中访问，释放锁之后再用来绘制。
+         */
+        private float mSweep;
+        private long mRemainingMillis;
+
+        RenderThread() {
+            super("CountDownRender", Process.THREAD_PRIORITY_DISPLAY);
+        }
+
+        /**
+         * 在任意线程中调用，让渲染线程尽快执行一次渲染。
+         */
+        void post() {
+            if (mHandler == null) {
+                mHandler = new Handler(getLooper());
+            }
+            mHandler.removeCallbacks(this);
+            mHandler.post(this);
+        }
+
+        @Override
+        public void run() {
+            if (mClock == null) {
+                mClock = CountDownClock.createForCurrentThread();
+            }
+            onFrame(CountDownClock.TIME_SOURCE.now());
+        }
+
+        @Override
+        public void onFrame(long now) {
+            boolean finished;
+            boolean requested;
+            boolean force;
+            boolean hasRemaining;
+            long millisLeft;
+            synchronized (mLock) {
+                finished = mEngine.update(now) == CountDownEngine.UPDATE_FINISHED;
+                requested = mRenderRequested;
+                mRenderRequested = false;
+                //刻度模式下每个刻度都需要绘制，平滑模式下变化不足一定像素时跳过。
+                force = finished || !mEngine.isSmooth();
+                mSweep = mEngine.getSweep();
+                hasRemaining = mEngine.getState() != CountDownEngine.STATE_IDLE;
+                if (hasRemaining) {
+                    mRemainingMillis = mEngine.getRemainingMillis(now);
+                }
+                millisLeft = mEngine.isRunning() ? mRemainingMillis : -1;
+            }
+            boolean ticking;
+            synchronized (mDrawLock) {
+                boolean dirty = mDrawable.setProgress(mSweep, force) | requested;
+                if (hasRemaining) {
+                    dirty |= mDrawable.setRemainingMillis(mRemainingMillis);
+                }
+                if (dirty && mSurfaceReady) {
+                    drawFrame();
+                }
+                ticking = mSurfaceReady && millisLeft >= 0;
+            }
+            mHandler.removeCallbacks(this);
+            if (ticking) {
+                mClock.register(this);
+            } else {
+                mClock.unregister(this);
+                if (millisLeft >= 0) {
+                    //Surface不可用时只在结束的时间点醒来一次。
+                    mHandler.postDelayed(this, millisLeft);
+                }
+            }
+            if (finished) {
+                mMainHandler.post(mFinishRunnable);
+            }
+        }
+
+        /**
+         * 把当前的进度绘制到Surface上，必须在持有{@link #mDrawLock}时调用。
+         */
+        private void drawFrame() {
+            SurfaceHolder holder = getHolder();
+            Canvas canvas = holder.lockCanvas();
+            if (canvas == null) {
+                return;
+            }
+            try {
+                canvas.drawColor(0, PorterDuff.Mode.CLEAR);
+                mDrawable.draw(canvas);
+            } finally {
+                holder.unlockCanvasAndPost(canvas);
+            }
+        }
+    }
+}
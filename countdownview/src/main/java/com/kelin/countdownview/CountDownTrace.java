@@ -0,0 +1,143 @@
+package com.kelin.countdownview;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.os.Trace;
+
+import java.lang.reflect.Method;
+
+/**
+ * <strong>描述: </strong> 倒计时的性能追踪，开启后会在Systrace/Perfetto中输出刷新、测量、绘制、排版以及结束回调的区段，
+ * 以及当前进度和正在运行的倒计时数量等计数器。
+ * <p>是否开启由一个静态的开关控制，关闭时每个追踪点只是读取一次静态变量，没有任何其他开销。区段需要API 18以上，
+ * 计数器在API 29以上使用{@code Trace.setCounter}，更低的版本使用隐藏的{@code Trace.traceCounter}，都不可用时只输出区段。
+ * <p>计数器通过{@link Counter}输出，只在值变化时才会调用反射，所以逐帧设置的计数器在值不变时不会装箱也不会创建参数数组。
+ * <p><strong>创建人: </strong> kelin
+ * <p><strong>版本: </strong> v 1.0.0
+ */
+final class CountDownTrace {
+
+    /**
+     * 对应隐藏的{@code Trace.TRACE_TAG_APP}。
+     */
+    private static final long TRACE_TAG_APP = 1L << 12;
+
+    private static boolean sEnabled;
+    /**
+     * 每次开关追踪时加一，让{@link Counter}在重新开启后再输出一次当前的值。
+     */
+    private static int sGeneration;
+    /**
+     * 输出计数器的方法，第一次使用时才会查找，为null并且{@link #sCounterResolved}为true表示不可用。
+     */
+    private static Method sCounterMethod;
+    private static boolean sCounterResolved;
+
+    private CountDownTrace() {
+    }
+
+    static void setEnabled(boolean enabled) {
+        sEnabled = enabled && Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2;
+        sGeneration++;
+    }
+
+    static boolean isEnabled() {
+        return sEnabled;
+    }
+
+    /**
+     * 开始一个区段。
+     *
+     * @return 如果真的开始了区段返回true，调用者需要在结束时调用{@link #endSection()}。
+     */
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN_MR2)
+    static boolean beginSection(String name) {
+        if (!sEnabled) {
+            return false;
+        }
+        Trace.beginSection(name);
+        return true;
+    }
+
+    /**
+     * 结束最近一次开始的区段，只能在{@link #beginSection(String)}返回true时调用。
+     */
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN_MR2)
+    static void endSection() {
+        Trace.endSection();
+    }
+
+    /**
+     * 输出一个计数器的值。
+     *
+     * @param args 复用的参数数组，为null时创建一个新的。
+     * @return 返回使用的参数数组，调用者可以保存下来在下一次输出时复用。
+     */
+    private static Object[] setCounter(Object[] args, String name, long value) {
+        if (!sCounterResolved) {
+            sCounterResolved = true;
+            sCounterMethod = resolveCounterMethod();
+        }
+        if (sCounterMethod == null) {
+            return args;
+        }
+        try {
+            if (Build.VERSION.SDK_INT >= 29) {
+                if (args == null) {
+                    args = new Object[]{name, null};
+                }
+                args[1] = value;
+            } else {
+                if (args == null) {
+                    args = new Object[]{TRACE_TAG_APP, name, null};
+                }
+                args[2] = (int) value;
+            }
+            sCounterMethod.invoke(null, args);
+        } catch (Exception e) {
+            sCounterMethod = null;
+        }
+        return args;
+    }
+
+    private static Method resolveCounterMethod() {
+        try {
+            if (Build.VERSION.SDK_INT >= 29) {
+                return Trace.class.getMethod("setCounter", String.class, long.class);
+            } else {
+                return Trace.class.getMethod("traceCounter", long.class, String.class, int.class);
+            }
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * 一个计数器，只能在同一个线程中使用。值没有变化时不会重复输出，不同线程中的同类计数器需要使用不同的名字，否则会在追踪中互相覆盖。
+     */
+    static final class Counter {
+        private final String mName;
+        private Object[] mArgs;
+        private long mValue;
+        /**
+         * 上一次输出时的{@link #sGeneration}，与当前的不同表示还没有在本次追踪中输出过。
+         */
+        private int mGeneration = -1;
+
+        Counter(String name) {
+            mName = name;
+        }
+
+        /**
+         * 设置计数器的值，追踪没有开启或者值没有变化时什么也不做。
+         */
+        void set(long value) {
+            if (!sEnabled || (value == mValue && mGeneration == sGeneration)) {
+                return;
+            }
+            mValue = value;
+            mGeneration = sGeneration;
+            mArgs = setCounter(mArgs, mName, value);
+        }
+    }
+}
@@ -1,29 +1,28 @@
 package com.kelin.countdownview;
 
-import android.annotation.SuppressLint;
 import android.content.Context;
 import android.content.res.TypedArray;
 import android.graphics.Canvas;
 import android.graphics.Color;
-import android.graphics.Paint;
-import android.graphics.RectF;
+import android.graphics.Rect;
+import android.graphics.drawable.Drawable;
 import android.os.Build;
-import android.os.CountDownTimer;
+import android.os.Handler;
+import android.os.Looper;
 import android.support.annotation.ColorInt;
 import android.support.annotation.ColorRes;
+import android.support.annotation.FloatRange;
 import android.support.annotation.IntDef;
 import android.support.annotation.IntRange;
 import android.support.annotation.Nullable;
 import android.support.annotation.RequiresApi;
 import android.support.v4.content.ContextCompat;
-import android.text.Layout;
-import android.text.StaticLayout;
-import android.text.TextPaint;
 import android.util.AttributeSet;
 import android.view.View;
 
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
+import java.util.ArrayList;
 
 /**
  * <strong>描述: </strong> 倒计时控件。
@@ -36,99 +35,150 @@ public class CountDownView extends View {
 
     @Retention(RetentionPolicy.SOURCE)
     @IntDef({CLOCKWISE_FROM_EXIST, CLOCKWISE_FROM_NOTHING, ANTICLOCKWISE_FROM_EXIST, ANTICLOCKWISE_FROM_NOTHING})
-    private @interface ProgressMode {
+    @interface ProgressMode {
+    }
+
+    @Retention(RetentionPolicy.SOURCE)
+    @IntDef({RESOLUTION_DEGREE, RESOLUTION_PIXEL, RESOLUTION_SECOND})
+    @interface ProgressResolution {
+    }
+
+    @Retention(RetentionPolicy.SOURCE)
+    @IntDef({REMAINING_TEXT_NONE, REMAINING_TEXT_SECONDS, REMAINING_TEXT_CLOCK})
+    @interface RemainingTextMode {
     }
 
-    private static final String DEFAULT_TEXT = "";
-    private final int DEFAULT_PADDING;
     /**
      * 表示进度条模式为顺时针从无到有。
      */
-    public static final int CLOCKWISE_FROM_NOTHING = 0b0000_0010;
+    public static final int CLOCKWISE_FROM_NOTHING = CountDownEngine.CLOCKWISE_FROM_NOTHING;
     /**
      * 表示进度条模式为顺时针从有到无。
      */
-    public static final int CLOCKWISE_FROM_EXIST = 0b0000_0011;
+    public static final int CLOCKWISE_FROM_EXIST = CountDownEngine.CLOCKWISE_FROM_EXIST;
     /**
      * 表示进度条模式为逆时针从无到有。
      */
-    public static final int ANTICLOCKWISE_FROM_NOTHING = 0b0000_0000;
+    public static final int ANTICLOCKWISE_FROM_NOTHING = CountDownEngine.ANTICLOCKWISE_FROM_NOTHING;
     /**
      * 表示进度条模式为逆时针从有到无。
      */
-    public static final int ANTICLOCKWISE_FROM_EXIST = 0b0000_0001;
+    public static final int ANTICLOCKWISE_FROM_EXIST = CountDownEngine.ANTICLOCKWISE_FROM_EXIST;
+    /**
+     * 表示不显示剩余时间，只显示文字内容。
+     */
+    public static final int REMAINING_TEXT_NONE = 0;
+    /**
+     * 表示以秒数的形式显示剩余时间，例如："3"。
+     */
+    public static final int REMAINING_TEXT_SECONDS = 1;
+    /**
+     * 表示以"分:秒"的形式显示剩余时间，例如："00:12"，超过一小时时显示为"时:分:秒"，例如："1:00:00"。
+     */
+    public static final int REMAINING_TEXT_CLOCK = 2;
+    /**
+     * 表示刻度模式下进度每次前进一度，整个圆共360个刻度。
+     */
+    public static final int RESOLUTION_DEGREE = 0;
     /**
-     * 背景颜色。
+     * 表示刻度模式下进度条末端每次前进一个像素，刻度数等于圆的周长，适合尺寸较小或时长较短的倒计时。
      */
-    private int mBackgroundColor;
+    public static final int RESOLUTION_PIXEL = 1;
+    /**
+     * 表示刻度模式下进度每秒前进一次，适合时长为几分钟甚至几小时的倒计时。
+     */
+    public static final int RESOLUTION_SECOND = 2;
+    /**
+     * 刻度间隔不小于该值时不再逐帧检查，而是只在下一个刻度到达时唤醒主线程，单位为毫秒。
+     */
+    private static final long MIN_SLEEP_STEP_INTERVAL = 50;
+    /**
+     * 自适应帧率下省电模式中刻度的最小间隔，单位为毫秒。
+     */
+    private static final long POWER_SAVE_STEP_INTERVAL = 250;
+    /**
+     * 自适应帧率下系统动画被关闭时整个圆的刻度数，进度条只在四个象限之间跳动。
+     */
+    private static final long ANIMATIONS_OFF_STEP_COUNT = 4;
     /**
      * 倒计时的监听。
      */
     private OnFinishListener mOnFinishListener;
     /**
-     * 一个范围为：0~360的小数，用来记录当前的进度。
+     * 通过{@link #attachTo(CountDownDeadline)}显示的截止时间，不为null时倒计时的结束以截止时间为准。
      */
-    private float mProgress;
+    private CountDownDeadline mAttachedDeadline;
     /**
-     * 一个范围为：0~360的小数，做动画时从多少结束。
+     * 显示时长。
      */
-    private long mProgressMax;
+    private long duration;
     /**
-     * 边框的宽度。
+     * 负责绘制背景圆、进度条以及文字。
      */
-    private int mProgressBarWidth;
+    private final CountDownDrawable mDrawable;
     /**
-     * 边框的颜色。
+     * 倒计时引擎，负责倒计时的状态以及进度的计算，每个控件只创建一次，开始、暂停、恢复、重新开始以及跳转都复用这一个对象。
      */
-    private int mProgressBarColor;
+    private final CountDownEngine mEngine = new CountDownEngine(CountDownClock.TIME_SOURCE);
     /**
-     * 要显示的文字。
+     * 倒计时工具，负责把倒计时引擎调度到共享的时钟上。
      */
-    private CharSequence mContentText;
+    private final CD mCD = new CD();
     /**
-     * 字体颜色。
+     * 是否使用平滑进度模式，该模式下每一帧都会根据真实流逝的时间计算进度，而不是按照360个固定刻度跳动。
      */
-    private int mTextColor;
+    private boolean mSmoothProgress;
     /**
-     * 每行文字的长度，用作换号的依据。
+     * 刻度模式下进度更新的粒度。
      */
-    private int mLineTextLength = 4;
+    private int mProgressResolution = RESOLUTION_DEGREE;
     /**
-     * 显示时长。
+     * 是否开启自适应帧率。
+     */
+    private boolean mAdaptiveFrameRate;
+    /**
+     * 计时与绘制指标，只有设置了指标监听后才会创建，为null时不会产生任何额外的开销。
+     */
+    private CountDownMetrics mMetrics;
+    private CountDownMetrics.OnMetricsListener mOnMetricsListener;
+    /**
+     * 进度监听以及它的节流器。
      */
-    private int duration;
+    private OnProgressListener mOnProgressListener;
+    private final ProgressThrottle mProgressThrottle = new ProgressThrottle();
     /**
-     * 用来画圆的画笔。
+     * 是否在控件不可见时自动挂起刷新。
      */
-    private final Paint mCirclePaint;
+    private boolean mAutoSuspend;
     /**
-     * 用来画进度条的画笔。
+     * 控件是否已经被添加到窗口上。
      */
-    private final Paint mProgressBarPaint;
+    private boolean mAttached;
     /**
-     * 用来绘制字体的画笔。
+     * 控件所在的倒计时组，在组中时由组统一驱动，不再单独注册到时钟上。
      */
-    private final TextPaint mTextPaint;
+    private CountDownGroup mGroup;
     /**
-     * 绘制进度条时需要用到的矩形，为了避免在onDraw的时候重复new，所以在这里直接创建了。
+     * 画在主进度条内侧的内圈，从外到内排列。
      */
-    private final RectF mRect = new RectF();
+    private final ArrayList<CountDownRing> mRings = new ArrayList<>();
     /**
-     * 用来绘制文字的工具。
+     * 相邻两个进度条之间的间距，单位为px。
      */
-    private StaticLayout mStaticLayout;
+    private int mRingSpacing;
     /**
-     * 倒计时工具。
+     * {@link #beginUpdate()}的嵌套层数，大于0时修改尺寸相关的属性不会立即重新测量。
      */
-    private CD mCD;
+    private int mUpdateDepth;
     /**
-     * 用来记录当前的进度条模式。
+     * 批量修改的过程中是否有尺寸相关的属性被修改。
      */
-    private int mProgressBarMode;
+    private boolean mGeometryChanged;
     /**
-     * 当前圆的半径。
+     * 上一次测量时的半径以及进度条宽度，用来判断属性修改后是否真的需要重新测量，小于0表示还没有测量过。
      */
-    private int mRadios;
+    private int mMeasuredRadius = -1;
+    private int mMeasuredProgressBarWidth;
 
     public CountDownView(Context context) {
         this(context, null);
@@ -137,78 +187,30 @@ public class CountDownView extends View {
     public CountDownView(Context context, AttributeSet attrs) {
         super(context, attrs);
         setClickable(true);
-        final float fontScale = getContext().getResources().getDisplayMetrics().scaledDensity;
-        float textSize = (int) (0x0000_000E * fontScale + 0.5);
-        mProgressBarWidth = (int) (2 * context.getResources().getDisplayMetrics().density + 0.5f);
-        boolean roundStrokeCap;
+        mDrawable = new CountDownDrawable(context);
         //获取自定义属性。
         TypedArray ta;
         if (attrs != null && (ta = context.obtainStyledAttributes(attrs, R.styleable.CountDownView)) != null) {
-            mBackgroundColor = ta.getColor(R.styleable.CountDownView_backgroundColor, 0xFF666666);
-            mProgressBarWidth = (int) (ta.getDimension(R.styleable.CountDownView_progressBarWidth, mProgressBarWidth) + 0.9);
-            mProgressBarColor = ta.getColor(R.styleable.CountDownView_progressBarColor, 0xFF66BEE0);
-            textSize = ta.getDimension(R.styleable.CountDownView_android_textSize, textSize);
-            mTextColor = ta.getColor(R.styleable.CountDownView_android_textColor, 0xFFFFFFFF);
-            mProgress = 360 * ta.getFloat(R.styleable.CountDownView_progress, 0);
-            mProgressMax = (long) (360 * ta.getFloat(R.styleable.CountDownView_progressMax, 1));
-            mProgressBarMode = ta.getInt(R.styleable.CountDownView_progressBarMode, CLOCKWISE_FROM_EXIST);
-            if ((mContentText = ta.getString(R.styleable.CountDownView_android_text)) == null) {
-                mContentText = DEFAULT_TEXT;
-            }
-            int length = mContentText.length();
-            if (length > 4) {
-                if ((length & 1) != 0) {
-                    length++;
-                }
-                length = length >> 1;
-            }
-            roundStrokeCap = ta.getBoolean(R.styleable.CountDownView_roundStrokeCap, false);
-            mLineTextLength = ta.getInteger(R.styleable.CountDownView_lineTextLength, length);
+            mDrawable.applyAttributes(context, ta);
+            mEngine.setSweep(360 * ta.getFloat(R.styleable.CountDownView_progress, 0));
+            mCD.drawImmediately();
+            mSmoothProgress = ta.getBoolean(R.styleable.CountDownView_smoothProgress, false);
+            mProgressResolution = ta.getInt(R.styleable.CountDownView_progressResolution, RESOLUTION_DEGREE);
+            mAdaptiveFrameRate = ta.getBoolean(R.styleable.CountDownView_adaptiveFrameRate, false);
+            mAutoSuspend = ta.getBoolean(R.styleable.CountDownView_autoSuspend, false);
             setDuration(ta.getInteger(R.styleable.CountDownView_duration, 3000));
             ta.recycle();
         } else {
-            roundStrokeCap = false;
-            mBackgroundColor = 0xFF666666;
-            mProgressBarColor = 0xFFFF0000;
-            mTextColor = 0xFFFFFFFF;
-            mLineTextLength = 4;
-            mProgressBarMode = CLOCKWISE_FROM_EXIST;
-            mContentText = DEFAULT_TEXT;
             setDuration(3000);
         }
-        DEFAULT_PADDING = (int) (3 * context.getResources().getDisplayMetrics().density + 0.5f);
-        //创建用来画圆的画笔。
-        mCirclePaint = createPaint(mBackgroundColor, 0, 0, Paint.Style.FILL, null);
-
-        //创建用来画进度条的画笔。
-        mProgressBarPaint = createPaint(mProgressBarColor, 0, mProgressBarWidth, Paint.Style.STROKE, null);
-        if (roundStrokeCap) {
-            mProgressBarPaint.setStrokeCap(Paint.Cap.ROUND);
-        }
-
-        //创建用来画文字的画笔以及给文字排版的工具。
-        mTextPaint = new TextPaint(createPaint(mTextColor, textSize, 0, null, Paint.Align.CENTER));
-        setText(mContentText);
+        mDrawable.setCallback(this);
     }
 
-    private Paint createPaint(int color, float textSize, float strokeWidth, @Nullable Paint.Style style, @Nullable Paint.Align align) {
-        Paint paint = new Paint();
-        paint.setAntiAlias(true);
-        paint.setDither(true);
-        paint.setColor(color);
-        if (textSize > 0) {
-            paint.setTextSize(textSize);
-        }
-        if (strokeWidth > 0) {
-            paint.setStrokeWidth(strokeWidth);
-        }
-        if (style != null) {
-            paint.setStyle(style);
-        }
-        if (align != null) {
-            paint.setTextAlign(align);
-        }
-        return paint;
+    /**
+     * 获取用来绘制的图形。
+     */
+    CountDownDrawable getDrawable() {
+        return mDrawable;
     }
 
     /**
@@ -218,7 +220,7 @@ public class CountDownView extends View {
      */
     public CountDownView setProgressBarMode(@ProgressMode int mProgressMode) {
         checkIsStartedAndThrow();
-        this.mProgressBarMode = mProgressMode;
+        mDrawable.setProgressBarMode(mProgressMode);
         return this;
     }
 
@@ -229,7 +231,8 @@ public class CountDownView extends View {
      */
     public CountDownView setProgressBarWidth(int widthPx) {
         checkIsStartedAndThrow();
-        this.mProgressBarWidth = widthPx;
+        mDrawable.setProgressBarWidth(widthPx);
+        onGeometryChanged();
         return this;
     }
 
@@ -241,7 +244,7 @@ public class CountDownView extends View {
     @RequiresApi(Build.VERSION_CODES.O)
     public CountDownView setProgressColor(Color color) {
         checkIsStartedAndThrow();
-        this.mProgressBarColor = color.toArgb();
+        mDrawable.setProgressBarColor(color.toArgb());
         return this;
     }
 
@@ -252,7 +255,7 @@ public class CountDownView extends View {
      */
     public CountDownView setProgressColor(@ColorInt int color) {
         checkIsStartedAndThrow();
-        this.mProgressBarColor = color;
+        mDrawable.setProgressBarColor(color);
         return this;
     }
 
@@ -263,7 +266,33 @@ public class CountDownView extends View {
      * @param color 要设置的颜色。
      */
     public CountDownView setProgressColorResource(@ColorRes int color) {
-        this.mProgressBarColor = ContextCompat.getColor(getContext(), color);
+        mDrawable.setProgressBarColor(ContextCompat.getColor(getContext(), color));
+        return this;
+    }
+
+    /**
+     * 设置进度条沿着圆周的渐变色,必须在{@link #start()}方法被调用前调用。渐变只会创建一次，每一帧的绘制开销与纯色的进度条相同。
+     *
+     * @param colors    渐变的颜色，至少需要两个，为null时清除渐变。
+     * @param positions 每个颜色所在的位置，范围为：0~1，必须是递增的，为null时均匀分布。
+     */
+    public CountDownView setProgressGradient(@Nullable @ColorInt int[] colors, @Nullable float[] positions) {
+        checkIsStartedAndThrow();
+        mDrawable.setProgressBarGradient(colors, positions);
+        return this;
+    }
+
+    /**
+     * 设置按照剩余进度变色的进度条颜色,必须在{@link #start()}方法被调用前调用。例如剩余时间越少越红：
+     * {@code setProgressColorStops(new int[]{Color.RED, Color.GREEN}, null, true)}。
+     *
+     * @param colors      每个节点的颜色，至少需要一个，为null时清除。
+     * @param positions   每个节点所在的剩余进度，范围为：0~1，必须是递增的，为null时均匀分布。
+     * @param interpolate 是否在相邻的节点之间渐变，否则剩余进度不超过某个节点时直接使用该节点的颜色。
+     */
+    public CountDownView setProgressColorStops(@Nullable @ColorInt int[] colors, @Nullable float[] positions, boolean interpolate) {
+        checkIsStartedAndThrow();
+        mDrawable.setProgressBarColorStops(colors, positions, interpolate);
         return this;
     }
 
@@ -274,9 +303,7 @@ public class CountDownView extends View {
      */
     @Override
     public void setBackgroundColor(@ColorInt int color) {
-        this.mBackgroundColor = color;
-        mCirclePaint.setColor(color);
-        invalidate();
+        mDrawable.setCircleColor(color);
     }
 
     /**
@@ -286,9 +313,7 @@ public class CountDownView extends View {
      */
     @RequiresApi(Build.VERSION_CODES.O)
     public CountDownView setBackgroundColor(Color color) {
-        this.mBackgroundColor = color.toArgb();
-        mCirclePaint.setColor(this.mBackgroundColor);
-        invalidate();
+        mDrawable.setCircleColor(color.toArgb());
         return this;
     }
 
@@ -298,9 +323,7 @@ public class CountDownView extends View {
      * @param color 要设置的颜色。
      */
     public CountDownView setBackgroundColorResource(@ColorRes int color) {
-        this.mBackgroundColor = ContextCompat.getColor(getContext(), color);
-        mCirclePaint.setColor(this.mBackgroundColor);
-        invalidate();
+        mDrawable.setCircleColor(ContextCompat.getColor(getContext(), color));
         return this;
     }
 
@@ -311,15 +334,11 @@ public class CountDownView extends View {
      */
     public CountDownView setText(CharSequence text) {
         checkIsStartedAndThrow();
-        this.mContentText = text;
-        createStaticLayout();
+        mDrawable.setText(text);
+        onGeometryChanged();
         return this;
     }
 
-    private void createStaticLayout() {
-        mStaticLayout = new StaticLayout(mContentText, mTextPaint, (int) mTextPaint.measureText(mContentText.subSequence(0, mLineTextLength).toString()), Layout.Alignment.ALIGN_NORMAL, 1F, 0, false);
-    }
-
     /**
      * 设置字体颜色,必须在{@link #start()}方法被调用前调用。
      *
@@ -327,9 +346,7 @@ public class CountDownView extends View {
      */
     public CountDownView setTextColor(@ColorInt int color) {
         checkIsStartedAndThrow();
-        this.mTextColor = color;
-        mTextPaint.setColor(color);
-        createStaticLayout();
+        mDrawable.setTextColor(color);
         return this;
     }
 
@@ -341,9 +358,7 @@ public class CountDownView extends View {
     @RequiresApi(Build.VERSION_CODES.O)
     public CountDownView setTextColor(Color color) {
         checkIsStartedAndThrow();
-        this.mTextColor = color.toArgb();
-        mTextPaint.setColor(this.mTextColor);
-        createStaticLayout();
+        mDrawable.setTextColor(color.toArgb());
         return this;
     }
 
@@ -354,9 +369,7 @@ public class CountDownView extends View {
      */
     public CountDownView setTextColorResource(@ColorRes int color) {
         checkIsStartedAndThrow();
-        this.mTextColor = ContextCompat.getColor(getContext(), color);
-        mTextPaint.setColor(this.mTextColor);
-        createStaticLayout();
+        mDrawable.setTextColor(ContextCompat.getColor(getContext(), color));
         return this;
     }
 
@@ -367,31 +380,382 @@ public class CountDownView extends View {
      */
     public CountDownView setLineTextLength(@IntRange(from = 1) int lineTextLength) {
         checkIsStartedAndThrow();
-        if (lineTextLength > 0 && lineTextLength < mContentText.length()) {
-            this.mLineTextLength = lineTextLength;
+        if (lineTextLength > 0 && lineTextLength < mDrawable.getText().length()) {
+            mDrawable.setLineTextLength(lineTextLength);
+            onGeometryChanged();
         }
-        createStaticLayout();
         return this;
     }
 
+    /**
+     * 设置是否根据控件的大小自动调整字体大小以及单行文字个数,必须在{@link #start()}方法被调用前调用。
+     * <p>开启后控件的宽或高受到限制时(例如指定了固定的尺寸)，会在{@link #setAutoFitMinTextSize(float)}到设置的字体大小之间
+     * 查找能够放进圆中的最大字体以及对应的换行，长文字不会再把圆撑大，也不需要针对每种语言单独设置{@link #setLineTextLength(int)}。
+     * 查找的结果会按照文字、圆的大小以及字体缓存，列表中反复绑定相同的文字时不会重复查找。
+     */
+    public CountDownView setAutoFitTextEnabled(boolean enabled) {
+        checkIsStartedAndThrow();
+        mDrawable.setAutoFitText(enabled);
+        requestLayout();
+        invalidate();
+        return this;
+    }
+
+    /**
+     * 设置自动调整时字体大小的最小值,必须在{@link #start()}方法被调用前调用。
+     *
+     * @param textSizePx 字体大小的最小值，单位为px。
+     */
+    public CountDownView setAutoFitMinTextSize(float textSizePx) {
+        checkIsStartedAndThrow();
+        mDrawable.setAutoFitMinTextSize(textSizePx);
+        onGeometryChanged();
+        return this;
+    }
+
+    /**
+     * 设置时长，单位为毫秒,必须在{@link #start()}方法被调用前调用。保留该方法是为了兼容按照旧版本编译的代码。
+     *
+     * @param duration 要设置的时长。
+     * @see #setDuration(long)
+     */
+    public CountDownView setDuration(@IntRange(from = 1) int duration) {
+        return setDuration((long) duration);
+    }
+
     /**
      * 设置时长，单位为毫秒,必须在{@link #start()}方法被调用前调用。
      *
-     * @param duration 要设置的时长，取值范围：1000 ~ 20000(1秒至20秒)。
+     * @param duration 要设置的时长，可以是不足一秒的时长，也可以是几个小时。
      */
-    public CountDownView setDuration(@IntRange(from = 1000, to = 20000) int duration) {
+    public CountDownView setDuration(@IntRange(from = 1) long duration) {
         checkIsStartedAndThrow();
-        if (duration < 1000) {
-            // 这里做小于1秒的判断是因为如果小于1秒假如是200毫秒的话就会导致➗360的时候得不到整数，
-            //而且如果小于一秒也没有倒计时的必要了，我是这么认为的。所以加了这个判断。
-            //至于没有判断大于20秒，是考虑到有可能你真的需要显示20秒，虽然我建议不要超过20秒，但还是不要抛出异常的好，
-            //我加了 @IntRange 注解只是想在超这个范围的时候在代码中有个警告。
-            throw new IllegalArgumentException("the duration must be ≥ 1000 and must be ≤ 20000!");
+        if (duration <= 0) {
+            throw new IllegalArgumentException("the duration must be > 0!");
         }
         this.duration = duration;
+        mDrawable.setRemainingMaxMillis(duration);
+        if (mDrawable.getRemainingTextMode() != REMAINING_TEXT_NONE) {
+            //剩余时间文字的宽度取决于时长。
+            onGeometryChanged();
+        }
         return this;
     }
 
+    /**
+     * 设置是否使用平滑进度模式,必须在{@link #start()}方法被调用前调用。
+     * <p>平滑模式下进度条跟随屏幕刷新连续变化，并且严格按照{@link #setDuration(long)}设置的时长结束；
+     * 非平滑模式下进度条按照{@link #setProgressResolution(int)}设置的粒度跳动。
+     *
+     * @param smoothProgress true表示使用平滑模式，false表示使用刻度模式。
+     */
+    public CountDownView setSmoothProgress(boolean smoothProgress) {
+        checkIsStartedAndThrow();
+        this.mSmoothProgress = smoothProgress;
+        return this;
+    }
+
+    /**
+     * 设置刻度模式下进度更新的粒度,必须在{@link #start()}方法被调用前调用。刻度的间隔较长时主线程只会在每个刻度到达时被唤醒一次，
+     * 所以时长很长的倒计时使用{@link #RESOLUTION_SECOND}可以大幅减少刷新的次数。平滑模式下该设置无效。
+     *
+     * @param resolution 粒度，分别为：{@link #RESOLUTION_DEGREE}、{@link #RESOLUTION_PIXEL}、{@link #RESOLUTION_SECOND}。
+     */
+    public CountDownView setProgressResolution(@ProgressResolution int resolution) {
+        checkIsStartedAndThrow();
+        mProgressResolution = resolution;
+        return this;
+    }
+
+    /**
+     * 根据进度更新的粒度计算整个圆被分成的刻度数。
+     */
+    private long computeStepCount() {
+        switch (mProgressResolution) {
+            case RESOLUTION_PIXEL:
+                long circumference = computeCircumference();
+                return circumference > 0 ? circumference : CountDownEngine.DEFAULT_STEP_COUNT;
+            case RESOLUTION_SECOND:
+                return Math.max(duration / 1000, 1);
+            default:
+                return CountDownEngine.DEFAULT_STEP_COUNT;
+        }
+    }
+
+    /**
+     * 计算背景圆的周长，单位为px，还没有测量时返回0。
+     */
+    private long computeCircumference() {
+        int radius = mDrawable.getRadius();
+        return radius > 0 ? Math.max(Math.round(2 * Math.PI * radius), 1) : 0;
+    }
+
+    /**
+     * 设置是否开启自适应帧率。开启后进度条的刷新频率会根据设备的状态降低，但{@link OnFinishListener#onFinish()}仍然会准时回调：
+     * <ul>
+     * <li>刻度数不会超过圆的周长，不会出现刷新了却没有任何像素变化的刻度；</li>
+     * <li>省电模式下最多每{@value #POWER_SAVE_STEP_INTERVAL}毫秒刷新一次，平滑模式也会改为刻度模式；</li>
+     * <li>系统动画被关闭时进度条只在四个象限之间跳动。</li>
+     * </ul>
+     * 倒计时过程中省电模式发生变化时会立即调整。
+     *
+     * @param enabled true表示开启，false表示关闭。
+     */
+    public CountDownView setAdaptiveFrameRateEnabled(boolean enabled) {
+        if (mAdaptiveFrameRate != enabled) {
+            mAdaptiveFrameRate = enabled;
+            if (mAttached) {
+                PowerStateMonitor monitor = PowerStateMonitor.getInstance(getContext());
+                if (enabled) {
+                    monitor.addListener(mCD);
+                } else {
+                    monitor.removeListener(mCD);
+                }
+            }
+            mCD.onPowerStateChanged();
+        }
+        return this;
+    }
+
+    /**
+     * 根据进度更新的粒度以及自适应帧率的设置决定倒计时引擎的模式和刻度数。
+     */
+    private void applyFrameRatePolicy() {
+        boolean smooth = mSmoothProgress;
+        long stepCount = computeStepCount();
+        if (mAdaptiveFrameRate) {
+            PowerStateMonitor monitor = PowerStateMonitor.getInstance(getContext());
+            long circumference = computeCircumference();
+            if (circumference > 0) {
+                //圆很小时大部分刻度不会改变任何像素。
+                stepCount = Math.min(stepCount, circumference);
+            }
+            if (monitor.areAnimationsDisabled()) {
+                smooth = false;
+                stepCount = Math.min(stepCount, ANIMATIONS_OFF_STEP_COUNT);
+            } else if (monitor.isPowerSaveMode()) {
+                smooth = false;
+                stepCount = Math.min(stepCount, Math.max(duration / POWER_SAVE_STEP_INTERVAL, 1));
+            } else if (smooth && circumference > 0 && duration / circumference >= MIN_SLEEP_STEP_INTERVAL) {
+                //每个像素的间隔都比较长时，按像素跳动与平滑模式看起来没有区别。
+                smooth = false;
+                stepCount = circumference;
+            }
+        }
+        mEngine.setSmooth(smooth).setStepCount(stepCount);
+    }
+
+    /**
+     * 设置是否开启静态图层缓存。开启后背景圆和文字会被绘制到一张缓存的图片中，只有在文字、颜色或尺寸改变后才会重新绘制，
+     * 每一帧只需要绘制进度条，适合文字较多(例如多行的中文)的场景，代价是多占用一张与控件等大的图片的内存。
+     *
+     * @param enabled true表示开启，false表示关闭。
+     */
+    public CountDownView setStaticLayerCacheEnabled(boolean enabled) {
+        mDrawable.setStaticLayerCacheEnabled(enabled);
+        return this;
+    }
+
+    /**
+     * 设置是否在控件不可见时自动挂起刷新。开启后当控件被移除、被隐藏或者所在的窗口不可见时不再产生任何帧，
+     * 但倒计时仍然按照真实时间进行：控件依附在窗口上时{@link OnFinishListener#onFinish()}会准时回调；
+     * 控件被移除后不再持有任何回调，如果重新添加时倒计时已经结束则会立即回调。
+     *
+     * @param autoSuspend true表示开启，false表示关闭。
+     */
+    public CountDownView setAutoSuspendEnabled(boolean autoSuspend) {
+        mAutoSuspend = autoSuspend;
+        mCD.schedule();
+        return this;
+    }
+
+    /**
+     * 添加一个内圈,必须在{@link #start()}方法被调用前调用。内圈按照添加的顺序从外到内画在主进度条的内侧，
+     * 与主进度条在同一次绘制中完成，并且同步开始、暂停、恢复以及取消。主进度条结束时还没有结束的内圈会被取消，所以主进度条的时长通常应该是最长的。
+     *
+     * @param ring 要添加的内圈，同一个内圈只能被添加到一个控件中。
+     */
+    public CountDownView addRing(CountDownRing ring) {
+        checkIsStartedAndThrow();
+        if (ring.getHost() == this) {
+            return this;
+        }
+        if (ring.getHost() != null) {
+            throw new IllegalStateException("The countDownRing is already added to another countDownView!");
+        }
+        ring.setHost(this);
+        mRings.add(ring);
+        onGeometryChanged();
+        return this;
+    }
+
+    /**
+     * 移除一个内圈,必须在{@link #start()}方法被调用前调用。
+     */
+    public CountDownView removeRing(CountDownRing ring) {
+        checkIsStartedAndThrow();
+        if (mRings.remove(ring)) {
+            ring.setHost(null);
+            onGeometryChanged();
+        }
+        return this;
+    }
+
+    /**
+     * 设置相邻两个进度条之间的间距,必须在{@link #start()}方法被调用前调用。
+     *
+     * @param spacingPx 间距，单位为px。
+     */
+    public CountDownView setRingSpacing(int spacingPx) {
+        checkIsStartedAndThrow();
+        mRingSpacing = spacingPx;
+        onGeometryChanged();
+        return this;
+    }
+
+    /**
+     * 计算所有内圈占用的宽度。
+     */
+    private int computeRingsThickness() {
+        int thickness = 0;
+        for (int i = 0, n = mRings.size(); i < n; i++) {
+            thickness += mRingSpacing + mRings.get(i).getProgressBarWidth();
+        }
+        return thickness;
+    }
+
+    /**
+     * 由内圈调用，在倒计时的过程中单独重新开始该内圈。
+     */
+    void restartRing(CountDownRing ring) {
+        long now = CountDownClock.TIME_SOURCE.now();
+        ring.getEngine().restart(now);
+        if (isPaused()) {
+            //暂停期间重新开始的内圈保持在起点，随控件一起恢复。
+            ring.getEngine().pause(now);
+        }
+        invalidate();
+        mCD.schedule();
+    }
+
+    /**
+     * 判断控件当前是否能被用户看到。
+     */
+    private boolean isRenderable() {
+        return mAttached && getWindowVisibility() == VISIBLE && isShown();
+    }
+
+    /**
+     * 设置剩余时间文字的显示模式,必须在{@link #start()}方法被调用前调用。开启后背景圆中会随着倒计时显示剩余的时间，而不是文字内容，
+     * 数字的字形只会被测量一次，每秒更新文字时不会创建对象也不会重新排版。
+     *
+     * @param mode 显示模式，分别为：{@link #REMAINING_TEXT_NONE}、{@link #REMAINING_TEXT_SECONDS}、{@link #REMAINING_TEXT_CLOCK}。
+     */
+    public CountDownView setRemainingTextMode(@RemainingTextMode int mode) {
+        checkIsStartedAndThrow();
+        mDrawable.setRemainingTextMode(mode);
+        onGeometryChanged();
+        return this;
+    }
+
+    /**
+     * 设置共享的样式,必须在{@link #start()}方法被调用前调用。多个控件使用同一个样式时共享同一份画笔，适合在列表中显示大量外观相同的倒计时。
+     *
+     * @param style 要使用的样式，可以通过{@link CountDownStyle.Builder}或{@link CountDownStyle#fromStyle(Context, int)}创建。
+     */
+    public CountDownView setStyle(CountDownStyle style) {
+        checkIsStartedAndThrow();
+        mDrawable.setStyle(style);
+        onGeometryChanged();
+        return this;
+    }
+
+    /**
+     * 设置是否在Systrace/Perfetto中输出倒计时的追踪信息，对所有的倒计时生效，默认关闭。
+     * <p>开启后刷新、测量、绘制、文字排版以及结束回调都会输出为单独的区段，并输出当前进度(千分比)以及正在运行的倒计时数量的计数器，
+     * 关闭时没有任何开销，所以可以在正式版中按需开启。区段需要API 18以上。
+     *
+     * @param enabled true表示开启，false表示关闭。
+     */
+    public static void setTraceEnabled(boolean enabled) {
+        CountDownTrace.setEnabled(enabled);
+    }
+
+    /**
+     * 开始批量修改属性，与{@link #endUpdate()}成对调用，可以嵌套。
+     * <p>属性被分为三类：颜色、进度条模式等只影响绘制的属性只会重绘；文字、字体大小等影响排版的属性会在下一次测量或绘制时重新排版；
+     * 进度条宽度、文字等影响尺寸的属性只有在背景圆的半径或进度条的宽度真的发生变化时才会重新测量。
+     * 批量修改的过程中尺寸相关的检查被推迟到{@link #endUpdate()}时进行，所以无论修改了多少个属性最多只会触发一次重新测量，
+     * 适合在列表中对大量控件重新设置样式。
+     */
+    public CountDownView beginUpdate() {
+        mUpdateDepth++;
+        return this;
+    }
+
+    /**
+     * 结束批量修改属性，最外层的调用会应用所有被推迟的尺寸变化。
+     */
+    public CountDownView endUpdate() {
+        if (mUpdateDepth == 0) {
+            throw new IllegalStateException("The endUpdate method must be called after the beginUpdate method!");
+        }
+        if (--mUpdateDepth == 0 && mGeometryChanged) {
+            mGeometryChanged = false;
+            applyGeometryChange();
+        }
+        return this;
+    }
+
+    /**
+     * 尺寸相关的属性被修改后调用，批量修改的过程中只做记录。
+     */
+    void onGeometryChanged() {
+        if (mUpdateDepth > 0) {
+            mGeometryChanged = true;
+        } else {
+            applyGeometryChange();
+        }
+    }
+
+    /**
+     * 按照新的属性重新计算半径，只有半径或进度条宽度真的变化时才重新测量，否则只需要重绘。
+     */
+    private void applyGeometryChange() {
+        if (mMeasuredRadius < 0 || mMeasuredRadius != measureRadius() || mMeasuredProgressBarWidth != mDrawable.getProgressBarWidth()) {
+            requestLayout();
+        }
+        invalidate();
+    }
+
+    /**
+     * 根据文字、内边距以及内圈测量背景圆的半径。
+     */
+    private int measureRadius() {
+        //内圈画在背景圆的内侧，测量时为它们预留出位置，避免与文字重叠。
+        int rings = computeRingsThickness() << 1;
+        return mDrawable.measureRadius(getPaddingLeft() + getPaddingRight() + rings, getPaddingTop() + getPaddingBottom() + rings);
+    }
+
+    /**
+     * 根据父容器给出的限制计算自动调整文字时圆的最大半径。
+     *
+     * @return 返回圆的最大半径，宽和高都没有限制时返回0。
+     */
+    private int computeFitRadius(int widthMeasureSpec, int heightMeasureSpec) {
+        int available = Integer.MAX_VALUE;
+        if (MeasureSpec.getMode(widthMeasureSpec) != MeasureSpec.UNSPECIFIED) {
+            available = MeasureSpec.getSize(widthMeasureSpec);
+        }
+        if (MeasureSpec.getMode(heightMeasureSpec) != MeasureSpec.UNSPECIFIED) {
+            available = Math.min(available, MeasureSpec.getSize(heightMeasureSpec));
+        }
+        if (available == Integer.MAX_VALUE) {
+            return 0;
+        }
+        return Math.max((available - mDrawable.getProgressBarWidth()) >> 1, 1);
+    }
+
     protected void checkIsStartedAndThrow() {
         if (isStarted()) {
             throw new IllegalStateException("The countDownView is started，You must call before the start method call.");
@@ -400,78 +764,317 @@ public class CountDownView extends View {
 
     @Override
     protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
-        int widthMode = MeasureSpec.getMode(widthMeasureSpec);
-        int heightMode = MeasureSpec.getMode(heightMeasureSpec);
-        int w = mStaticLayout.getWidth() + getPaddingLeft() + getPaddingRight() + DEFAULT_PADDING;
-        int h = mStaticLayout.getHeight() + getPaddingTop() + getPaddingBottom() + DEFAULT_PADDING;
-        mRadios = (int) ((Math.sqrt(Math.pow(w, 2) + Math.pow(h, 2)) + 0.5f) / 2);
-        int width;
-        if (widthMode != MeasureSpec.EXACTLY) {
-            width = (mRadios << 1) + mProgressBarWidth;
-        } else {
-            width = MeasureSpec.getSize(widthMeasureSpec);
+        boolean trace = CountDownTrace.beginSection("CountDownView#onMeasure");
+        try {
+            int widthMode = MeasureSpec.getMode(widthMeasureSpec);
+            int heightMode = MeasureSpec.getMode(heightMeasureSpec);
+            if (mDrawable.isAutoFitText()) {
+                mDrawable.setFitRadius(computeFitRadius(widthMeasureSpec, heightMeasureSpec));
+            }
+            int radios = measureRadius();
+            mMeasuredRadius = radios;
+            mMeasuredProgressBarWidth = mDrawable.getProgressBarWidth();
+            int width;
+            if (widthMode != MeasureSpec.EXACTLY) {
+                width = (radios << 1) + mDrawable.getProgressBarWidth();
+            } else {
+                width = MeasureSpec.getSize(widthMeasureSpec);
+            }
+            int height;
+            if (heightMode != MeasureSpec.EXACTLY) {
+                height = (radios << 1) + mDrawable.getProgressBarWidth();
+            } else {
+                height = MeasureSpec.getSize(heightMeasureSpec);
+            }
+            setMeasuredDimension(width, height);
+        } finally {
+            if (trace) {
+                CountDownTrace.endSection();
+            }
         }
-        int height;
-        if (heightMode != MeasureSpec.EXACTLY) {
-            height = (mRadios << 1) + mProgressBarWidth;
-        } else {
-            height = MeasureSpec.getSize(heightMeasureSpec);
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        mDrawable.setBounds(0, 0, w, h);
+    }
+
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        mAttached = true;
+        if (mAdaptiveFrameRate) {
+            PowerStateMonitor.getInstance(getContext()).addListener(mCD);
         }
-        setMeasuredDimension(width, height);
+        mCD.schedule();
     }
 
     @Override
-    @SuppressLint("DrawAllocation")
-    protected void onDraw(Canvas canvas) {
-        int cx = getMeasuredWidth() >>> 1;
-        int cy = getMeasuredHeight() >>> 1;
-        canvas.drawCircle(cx, cy, mRadios, mCirclePaint);
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        mAttached = false;
+        if (mAdaptiveFrameRate) {
+            PowerStateMonitor.getInstance(getContext()).removeListener(mCD);
+        }
+        mCD.schedule();
+        mDrawable.releaseStaticLayer();
+    }
+
+    @Override
+    protected void onVisibilityChanged(View changedView, int visibility) {
+        super.onVisibilityChanged(changedView, visibility);
+        //该方法可能在父类的构造方法中被调用，那时倒计时工具还没有被创建。
+        if (mCD != null) {
+            mCD.schedule();
+        }
+    }
 
-        mRect.left = cx - mRadios;
-        mRect.top = cy - mRadios;
-        mRect.right = cx + mRadios;
-        mRect.bottom = cy + mRadios;
-        canvas.drawArc(mRect, -90, mProgress, false, mProgressBarPaint);
-        canvas.translate(cx, cy - (mStaticLayout.getHeight() >>> 1));
-        mStaticLayout.draw(canvas);
+    @Override
+    protected void onWindowVisibilityChanged(int visibility) {
+        super.onWindowVisibilityChanged(visibility);
+        mCD.schedule();
+    }
+
+    @Override
+    protected boolean verifyDrawable(Drawable who) {
+        return who == mDrawable || super.verifyDrawable(who);
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        boolean trace = CountDownTrace.beginSection("CountDownView#onDraw");
+        try {
+            mDrawable.draw(canvas);
+            if (!mRings.isEmpty()) {
+                Rect bounds = mDrawable.getBounds();
+                float radius = mDrawable.getRadius() - mDrawable.getProgressBarWidth() / 2F;
+                for (int i = 0, n = mRings.size(); i < n; i++) {
+                    CountDownRing ring = mRings.get(i);
+                    float halfWidth = ring.getProgressBarWidth() / 2F;
+                    radius -= mRingSpacing + halfWidth;
+                    ring.draw(canvas, bounds.centerX(), bounds.centerY(), radius);
+                    radius -= halfWidth;
+                }
+            }
+            if (mMetrics != null) {
+                mMetrics.onFrameDrawn();
+            }
+        } finally {
+            if (trace) {
+                CountDownTrace.endSection();
+            }
+        }
     }
 
     public void start() {
-        if (mCD != null) {
+        if (isStarted()) {
             throw new IllegalStateException("The countdown has begun!");
         }
-        int unit = duration / 360;
-        mCD = new CD(mProgressMax * unit, unit);
-        mCD.startCountDown();
+        prepareCountDown();
+        mAttachedDeadline = null;
+        long now = CountDownClock.TIME_SOURCE.now();
+        mEngine.start(now);
+        for (int i = 0, n = mRings.size(); i < n; i++) {
+            mRings.get(i).getEngine().restart(now);
+        }
+        mCD.onStart(now);
     }
 
-    public boolean isStarted() {
-        return mCD != null && mCD.isStarted();
+    /**
+     * 根据当前的时长以及进度模式设置倒计时引擎。
+     */
+    private void prepareCountDown() {
+        mEngine.setDuration(duration)
+                .setProgressMode(mDrawable.getProgressBarMode())
+                .setProgressMax(mDrawable.getProgressMax());
+        applyFrameRatePolicy();
+    }
+
+    /**
+     * 按照{@link CountDownRegistry}中一个截止时间的进度开始倒计时，适合在列表中显示大量由注册表统一跟踪的倒计时。
+     * 控件的时长会被设置为截止时间的总时长，进度从截止时间当前的位置开始，指标以及内圈也都以截止时间对应的开始时间作为起点。
+     * 已经到期的截止时间直接显示结束的状态，已经被取消的截止时间显示没有开始的状态。
+     * 如果控件的倒计时已经开始了(例如列表中的控件被复用)，会先取消原来的倒计时。
+     * <p>截止时间到期的消息只由{@link CountDownRegistry}回调，控件自然结束时不会再回调自己的{@link OnFinishListener#onFinish()}，
+     * 所以列表中的控件被反复复用时不会收到重复的结束消息。用户点击控件提前结束时依然会回调控件的结束监听。
+     *
+     * @param deadline 要显示的截止时间。
+     */
+    public void attachTo(CountDownDeadline deadline) {
+        cancel();
+        setDuration(deadline.getDuration());
+        prepareCountDown();
+        mAttachedDeadline = deadline;
+        if (!deadline.isActive()) {
+            if (deadline.isExpired()) {
+                mEngine.finish();
+            } else {
+                mEngine.setSweep(CountDownEngine.computeSweep(mEngine.getProgressMode(), mEngine.getProgressMax(), mEngine.getProgressMax()));
+            }
+            mCD.drawImmediately();
+            mCD.schedule();
+            return;
+        }
+        long now = CountDownClock.TIME_SOURCE.now();
+        //把开始时间往前推，使倒计时恰好在截止时间结束。
+        long millisInFuture = deadline.getDuration() * mEngine.getProgressMax() / 360;
+        long startTime = deadline.getDeadline() - millisInFuture;
+        mEngine.start(startTime);
+        //先同步到当前的进度，控件出现之前经过的刻度不算作收到的刻度。
+        mEngine.update(now);
+        for (int i = 0, n = mRings.size(); i < n; i++) {
+            mRings.get(i).getEngine().restart(startTime);
+        }
+        mCD.onStart(startTime, now);
+    }
+
+    /**
+     * 暂停倒计时，剩余的时间会被保留，调用{@link #resume()}后从暂停的位置继续。如果倒计时没有开始或已经暂停则什么也不做。
+     */
+    public void pause() {
+        pauseAt(CountDownClock.TIME_SOURCE.now());
+    }
+
+    void pauseAt(long now) {
+        if (mEngine.isRunning()) {
+            mEngine.pause(now);
+            for (int i = 0, n = mRings.size(); i < n; i++) {
+                mRings.get(i).getEngine().pause(now);
+            }
+            if (mMetrics != null) {
+                mMetrics.onPause(now);
+            }
+            mCD.schedule();
+        }
+    }
+
+    /**
+     * 从暂停的位置继续倒计时。如果倒计时没有被暂停则什么也不做。
+     */
+    public void resume() {
+        resumeAt(CountDownClock.TIME_SOURCE.now());
+    }
+
+    void resumeAt(long now) {
+        if (mEngine.isPaused()) {
+            mEngine.resume(now);
+            for (int i = 0, n = mRings.size(); i < n; i++) {
+                mRings.get(i).getEngine().resume(now);
+            }
+            if (mMetrics != null) {
+                mMetrics.onResume(now);
+            }
+            mCD.schedule();
+        }
     }
 
     /**
-     * 判断是否是顺时针进度条。
+     * 重新开始倒计时，无论当前是否已经开始都会从头开始，不会回调{@link OnFinishListener#onFinish()}。
+     */
+    public void restart() {
+        restartAt(CountDownClock.TIME_SOURCE.now());
+    }
+
+    void restartAt(long now) {
+        prepareCountDown();
+        mAttachedDeadline = null;
+        mEngine.restart(now);
+        for (int i = 0, n = mRings.size(); i < n; i++) {
+            mRings.get(i).getEngine().restart(now);
+        }
+        mCD.onStart(now);
+    }
+
+    /**
+     * 取消倒计时，不会回调{@link OnFinishListener#onFinish()}，进度保持在取消时的位置。
+     */
+    public void cancel() {
+        if (isStarted()) {
+            mEngine.cancel();
+            cancelRings();
+            mCD.schedule();
+        }
+    }
+
+    /**
+     * 取消所有还没有结束的内圈，进度保持在取消时的位置。
+     */
+    private void cancelRings() {
+        for (int i = 0, n = mRings.size(); i < n; i++) {
+            CountDownEngine engine = mRings.get(i).getEngine();
+            if (engine.isStarted()) {
+                engine.cancel();
+            }
+        }
+    }
+
+    /**
+     * 设置控件所在的倒计时组，由{@link CountDownGroup}调用。
+     */
+    void setGroup(@Nullable CountDownGroup group) {
+        mGroup = group;
+        mCD.schedule();
+    }
+
+    CountDownGroup getGroup() {
+        return mGroup;
+    }
+
+    /**
+     * 由所在的倒计时组在每一帧或者休眠后醒来时调用。
+     */
+    void onGroupFrame(long now) {
+        //没有开始、已经结束或者暂停的控件不需要更新，否则会显示错误的剩余时间并产生多余的进度回调和指标。
+        if (mEngine.isRunning()) {
+            mCD.onFrame(now);
+        }
+    }
+
+    /**
+     * 由所在的倒计时组调用，获取控件可以休眠的毫秒数。
      *
-     * @return 如果是返回true，否则返回false。
+     * @return 返回距离下一次需要醒来的毫秒数，需要逐帧刷新时返回-1。
      */
-    private boolean hasClockwiseProgress() {
-        return (mProgressBarMode & 2) != 0;
+    long getGroupSleepDelay(long now) {
+        return mCD.canSleep() ? mCD.computeSleepDelay(now) : -1;
     }
 
     /**
-     * 判断是否是从有到无绘制。
+     * 跳转到指定的进度，如果倒计时处于暂停状态则跳转后仍然保持暂停，必须在{@link #start()}方法被调用后调用。
      *
-     * @return 如果是返回true，否则返回false。
+     * @param fraction 一个范围为：0~1的小数，表示已经流逝的时间占总时长的比例。
      */
-    private boolean hasFromExistProgress() {
-        return (mProgressBarMode & 1) != 0;
+    public void seekTo(@FloatRange(from = 0, to = 1) float fraction) {
+        mEngine.seekTo(fraction);
+        if (mMetrics != null) {
+            mMetrics.onSeek(CountDownClock.TIME_SOURCE.now(), mEngine.getMillisInFuture() - mEngine.getRemainingMillis());
+        }
+        mCD.drawImmediately();
+        mCD.dispatchProgress(CountDownClock.TIME_SOURCE.now(), true);
+        mCD.schedule();
+    }
+
+    /**
+     * 判断倒计时是否已经开始，暂停状态也被认为是已经开始。
+     */
+    public boolean isStarted() {
+        return mEngine.isStarted();
+    }
+
+    /**
+     * 判断倒计时是否处于暂停状态。
+     */
+    public boolean isPaused() {
+        return mEngine.isPaused();
     }
 
     @Override
     public boolean performClick() {
-        if (mCD != null) {
-            mCD.cancelCountDown();
-            mCD.onFinish();
+        if (isStarted()) {
+            mEngine.finish();
+            mCD.schedule();
+            mCD.onFinish(false);
         }
         return super.performClick();
     }
@@ -481,6 +1084,58 @@ public class CountDownView extends View {
         return this;
     }
 
+    /**
+     * 设置计时与绘制指标的监听，每次倒计时结束后回调一次。设置为null后不再收集任何指标。
+     *
+     * @param listener 指标监听。
+     */
+    public CountDownView setOnMetricsListener(@Nullable CountDownMetrics.OnMetricsListener listener) {
+        mOnMetricsListener = listener;
+        if (listener == null) {
+            mMetrics = null;
+        } else if (mMetrics == null) {
+            mMetrics = new CountDownMetrics();
+        }
+        return this;
+    }
+
+    /**
+     * 设置进度监听，每一帧进度发生变化时都会回调。
+     *
+     * @param listener 进度监听。
+     * @see #setOnProgressListener(OnProgressListener, long, float)
+     */
+    public CountDownView setOnProgressListener(@Nullable OnProgressListener listener) {
+        return setOnProgressListener(listener, 0, 0);
+    }
+
+    /**
+     * 设置进度监听，进度由控件自己的时钟驱动，不需要再额外创建计时器。同一帧内最多回调一次，
+     * 只有距离上一次回调的时间不小于最小间隔、并且进度的变化不小于最小变化量时才会回调，开始、跳转以及结束时总是会回调。
+     * <p>刻度模式下进度监听只会在控件刷新时被回调，如果最小间隔较长，控件也不会为了进度监听而逐帧唤醒主线程。
+     *
+     * @param listener          进度监听。
+     * @param minIntervalMillis 两次回调之间的最小间隔，单位为毫秒，0表示不限制。
+     * @param minDelta          两次回调之间进度的最小变化量，范围为：0~1，0表示不限制。
+     */
+    public CountDownView setOnProgressListener(@Nullable OnProgressListener listener, @IntRange(from = 0) long minIntervalMillis, @FloatRange(from = 0, to = 1) float minDelta) {
+        mOnProgressListener = listener;
+        mProgressThrottle.set(minIntervalMillis, minDelta);
+        mProgressThrottle.reset();
+        mCD.schedule();
+        return this;
+    }
+
+    public interface OnProgressListener {
+        /**
+         * 进度变化时回调，参数都是基本类型，回调过程中不会创建任何对象。
+         *
+         * @param remainingMillis 剩余的毫秒数。
+         * @param fraction        已经流逝的时间占总时长的比例，范围为：0~1，结束时为1。
+         */
+        void onProgress(long remainingMillis, float fraction);
+    }
+
     public interface OnFinishListener {
         /**
          * 倒计时完成或空间被点击后执行。
@@ -488,56 +1143,288 @@ public class CountDownView extends View {
         void onFinish();
     }
 
-    private class CD extends CountDownTimer {
-        private boolean isStarted;
-        private final long mCountDownInterval;
+    /**
+     * 倒计时工具，不再持有自己的计时器，而是注册到共享的{@link CountDownClock}上由其每帧驱动，进度的计算全部交给{@link CountDownEngine}。
+     * 开启自动挂起后，控件不可见时会从时钟上注销，只在结束的时间点投递一次消息用来回调结束监听。
+     * <p>唤醒的消息投递到主线程的{@link Handler}上而不是控件的消息队列，控件被移除后消息依然会准时执行，结束监听不会丢失。
+     */
+    private class CD implements CountDownClock.OnFrameListener, Runnable, PowerStateMonitor.OnPowerStateChangedListener {
+
+        private final Handler mHandler = new Handler(Looper.getMainLooper());
+        private final CountDownTrace.Counter mProgressCounter = new CountDownTrace.Counter("CountDownView#progress");
 
         /**
-         * @param millisInFuture    The number of millis in the future from the call
-         *                          to {@link #start()} until the countdown is done and {@link #onFinish()}
-         *                          is called.
-         * @param countDownInterval The interval along the way to receive
-         *                          {@link #onTick(long)} callbacks.
+         * 根据当前的状态决定是注册到时钟上逐帧刷新，还是挂起并只等待结束，或者什么也不做。
          */
-        CD(long millisInFuture, long countDownInterval) {
-            super(millisInFuture, countDownInterval);
-            mCountDownInterval = countDownInterval;
+        void schedule() {
+            schedule(false);
         }
 
-        @Override
-        public void onTick(long millisUntilFinished) {
-            long scale = millisUntilFinished / mCountDownInterval;
-            if (hasFromExistProgress()) {
-                mProgress = hasClockwiseProgress() ? ~scale : scale;
+        /**
+         * @param ticked 调用前是否已经用当前时间更新过进度，唤醒后在{@link #run()}中已经更新过的不需要再更新一次。
+         */
+        private void schedule(boolean ticked) {
+            CountDownClock clock = CountDownClock.getInstance();
+            mHandler.removeCallbacks(this);
+            if (mGroup != null) {
+                //在组中时由组统一驱动。
+                clock.unregister(this);
+                mGroup.schedule();
+            } else if (!mEngine.isRunning()) {
+                clock.unregister(this);
+            } else if (!mAutoSuspend || isRenderable()) {
+                if (canSleep()) {
+                    //刻度间隔较长时不需要逐帧检查，只在下一个刻度或下一次进度回调到达时醒来。
+                    clock.unregister(this);
+                    long now = CountDownClock.TIME_SOURCE.now();
+                    if (!ticked) {
+                        //开始、恢复或者从逐帧刷新切换过来时同步一次进度。
+                        if (!tick(now)) {
+                            return;
+                        }
+                        drawImmediately();
+                    }
+                    mHandler.postDelayed(this, computeSleepDelay(now));
+                } else if (!clock.isRegistered(this)) {
+                    //从挂起状态恢复时立即同步一次进度，避免显示挂起前的旧画面。
+                    if (!ticked) {
+                        if (!tick(CountDownClock.TIME_SOURCE.now())) {
+                            return;
+                        }
+                        drawImmediately();
+                    }
+                    clock.register(this);
+                }
             } else {
-                mProgress = hasClockwiseProgress() ? mProgressMax - scale : ~(mProgressMax - scale);
+                clock.unregister(this);
+                if (mAttached) {
+                    //内圈的结束也需要准时回调。
+                    mHandler.postDelayed(this, Math.min(mEngine.getRemainingMillis(), getRingsRemainingMillis()));
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            if (tick(CountDownClock.TIME_SOURCE.now())) {
+                schedule(true);
+            }
+        }
+
+        @Override
+        public void onPowerStateChanged() {
+            if (isStarted()) {
+                applyFrameRatePolicy();
+                schedule();
+            }
+        }
+
+        /**
+         * 判断是否可以在刻度之间休眠，平滑模式、刻度间隔较短或者进度回调较频繁时需要逐帧刷新。
+         */
+        boolean canSleep() {
+            return !mEngine.isSmooth() && mEngine.getStepInterval() >= MIN_SLEEP_STEP_INTERVAL && canRingsSleep()
+                    && (mOnProgressListener == null || mProgressThrottle.getMinWait(mEngine.getMillisInFuture()) >= MIN_SLEEP_STEP_INTERVAL);
+        }
+
+        /**
+         * 计算休眠时距离下一次需要醒来的毫秒数，也就是下一个刻度、下一次进度回调以及剩余时间文字下一次变化中最早的一个。
+         */
+        long computeSleepDelay(long now) {
+            long delay = Math.min(mEngine.getMillisUntilNextStep(now), getRingsMillisUntilNextStep(now));
+            if (mOnProgressListener != null) {
+                delay = Math.min(delay, mProgressThrottle.getMillisUntilDue(now, computeFraction(now), mEngine.getMillisInFuture()));
+            }
+            if (mDrawable.getRemainingTextMode() != REMAINING_TEXT_NONE) {
+                //剩余时间文字按秒变化，不能等到下一个刻度。
+                long millisLeft = mEngine.getRemainingMillis(now);
+                delay = Math.min(delay, millisLeft - (DigitGlyphCache.toSeconds(millisLeft) - 1) * 1000);
+            }
+            return delay;
+        }
+
+        /**
+         * 判断正在进行的内圈是否都允许挂起，平滑模式或刻度间隔较短的内圈需要逐帧刷新。
+         */
+        boolean canRingsSleep() {
+            for (int i = 0, n = mRings.size(); i < n; i++) {
+                CountDownEngine engine = mRings.get(i).getEngine();
+                if (engine.isRunning() && (engine.isSmooth() || engine.getStepInterval() < MIN_SLEEP_STEP_INTERVAL)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * 获取正在进行的内圈中距离下一个刻度最近的毫秒数，没有正在进行的内圈时返回{@link Long#MAX_VALUE}。
+         */
+        long getRingsMillisUntilNextStep(long now) {
+            long millis = Long.MAX_VALUE;
+            for (int i = 0, n = mRings.size(); i < n; i++) {
+                CountDownEngine engine = mRings.get(i).getEngine();
+                if (engine.isRunning()) {
+                    millis = Math.min(millis, engine.getMillisUntilNextStep(now));
+                }
+            }
+            return millis;
+        }
+
+        /**
+         * 获取正在进行的内圈中最早结束的剩余毫秒数，没有正在进行的内圈时返回{@link Long#MAX_VALUE}。
+         */
+        long getRingsRemainingMillis() {
+            long millis = Long.MAX_VALUE;
+            for (int i = 0, n = mRings.size(); i < n; i++) {
+                CountDownEngine engine = mRings.get(i).getEngine();
+                if (engine.isRunning()) {
+                    millis = Math.min(millis, engine.getRemainingMillis());
+                }
+            }
+            return millis;
+        }
+
+        /**
+         * 用同一个时间更新所有的内圈，进度有变化时重绘，结束的内圈回调结束监听。
+         */
+        void updateRings(long now) {
+            boolean changed = false;
+            for (int i = 0, n = mRings.size(); i < n; i++) {
+                CountDownRing ring = mRings.get(i);
+                CountDownEngine engine = ring.getEngine();
+                if (!engine.isRunning()) {
+                    continue;
+                }
+                int result = engine.update(now);
+                if (result != CountDownEngine.UPDATE_NONE) {
+                    changed = true;
+                }
+                if (result == CountDownEngine.UPDATE_FINISHED) {
+                    ring.dispatchFinish();
+                }
+            }
+            if (changed) {
+                invalidate();
             }
-            invalidate();
         }
 
         @Override
-        public void onFinish() {
-            mProgress = hasFromExistProgress() ? 0 : hasClockwiseProgress() ? mProgressMax : ~mProgressMax;
-            invalidate();
-            if (mOnFinishListener != null) {
-                mOnFinishListener.onFinish();
+        public void onFrame(long now) {
+            tick(now);
+        }
+
+        /**
+         * 按照指定的时间更新进度。逐帧刷新、刻度到达时的唤醒以及从挂起状态恢复都经过这里，所以指标和进度监听不会漏掉任何一个刻度。
+         *
+         * @return 倒计时还在进行返回true，结束了返回false。
+         */
+        boolean tick(long now) {
+            boolean trace = CountDownTrace.beginSection("CountDownView#tick");
+            try {
+                updateRings(now);
+                int result = mEngine.update(now);
+                if (mMetrics != null && result != CountDownEngine.UPDATE_FINISHED) {
+                    mMetrics.onTick(now, result == CountDownEngine.UPDATE_PROGRESS, mEngine.getMillisSinceStep(now));
+                }
+                if (result == CountDownEngine.UPDATE_FINISHED) {
+                    CountDownClock.getInstance().unregister(this);
+                    mHandler.removeCallbacks(this);
+                    onFinish(true);
+                    return false;
+                }
+                if (result == CountDownEngine.UPDATE_PROGRESS) {
+                    //刻度模式下每个刻度都需要绘制，平滑模式下变化不足一定像素时跳过。
+                    mDrawable.setProgress(mEngine.getSweep(), !mEngine.isSmooth());
+                }
+                mDrawable.setRemainingMillis(mEngine.getRemainingMillis(now));
+                dispatchProgress(now, false);
+                if (CountDownTrace.isEnabled()) {
+                    mProgressCounter.set((long) (computeFraction(now) * 1000));
+                }
+                return true;
+            } finally {
+                if (trace) {
+                    CountDownTrace.endSection();
+                }
             }
-            mCD = null;
-            isStarted = false;
         }
 
-        void startCountDown() {
-            start();
-            isStarted = true;
+        void onStart(long now) {
+            onStart(now, now);
+        }
+
+        /**
+         * @param startTime 倒计时的开始时间，按照截止时间显示时会早于当前时间。
+         * @param now       当前时间。
+         */
+        void onStart(long startTime, long now) {
+            if (mMetrics != null) {
+                mMetrics.onStart(startTime, now, mEngine.getMillisInFuture(), mEngine.isSmooth() ? 0 : mEngine.getStepCount(), mEngine.getDuration());
+            }
+            drawImmediately();
+            mProgressThrottle.reset();
+            dispatchProgress(now, true);
+            schedule();
         }
 
-        void cancelCountDown() {
-            cancel();
-            isStarted = false;
+        /**
+         * 计算已经流逝的时间占总时长的比例。
+         */
+        float computeFraction(long now) {
+            long millisInFuture = mEngine.getMillisInFuture();
+            return millisInFuture > 0 ? 1 - mEngine.getRemainingMillis(now) / (float) millisInFuture : 1;
         }
 
-        boolean isStarted() {
-            return isStarted;
+        /**
+         * 把当前的进度回调给进度监听，是否回调由节流器决定。
+         *
+         * @param force 是否忽略最小间隔以及最小变化量。
+         */
+        void dispatchProgress(long now, boolean force) {
+            if (mOnProgressListener == null) {
+                return;
+            }
+            float fraction = computeFraction(now);
+            if (mProgressThrottle.shouldDeliver(now, fraction, force)) {
+                mOnProgressListener.onProgress(mEngine.getRemainingMillis(now), fraction);
+            }
+        }
+
+        /**
+         * @param completed 倒计时是否是自然结束的。
+         */
+        void onFinish(boolean completed) {
+            boolean trace = CountDownTrace.beginSection("CountDownView#onFinish");
+            try {
+                cancelRings();
+                drawImmediately();
+                long now = CountDownClock.TIME_SOURCE.now();
+                dispatchProgress(now, true);
+                if (mMetrics != null) {
+                    mMetrics.onFinish(now, completed);
+                }
+                //按照截止时间显示时自然结束的消息由注册表回调。
+                if (mOnFinishListener != null && (!completed || mAttachedDeadline == null)) {
+                    mOnFinishListener.onFinish();
+                }
+                if (mOnMetricsListener != null) {
+                    mOnMetricsListener.onMetrics(mMetrics);
+                }
+            } finally {
+                if (trace) {
+                    CountDownTrace.endSection();
+                }
+            }
+        }
+
+        /**
+         * 不等待下一帧，立即按照引擎当前的进度绘制。
+         */
+        void drawImmediately() {
+            mDrawable.setProgress(mEngine.getSweep(), true);
+            if (mEngine.getState() != CountDownEngine.STATE_IDLE) {
+                mDrawable.setRemainingMillis(mEngine.getRemainingMillis());
+            }
         }
     }
 }
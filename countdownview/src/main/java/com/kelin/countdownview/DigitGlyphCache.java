@@ -0,0 +1,144 @@
+package com.kelin.countdownview;
+
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Typeface;
+
+/**
+ * <strong>描述: </strong> 剩余时间文字的字形缓存。
+ * <p>针对当前画笔的字体大小和字体预先测量好'0'~'9'以及':'的宽度，画笔配置不变时只测量一次。剩余时间被格式化到一个复用的字符数组中，
+ * 每个数字按照最宽数字的宽度等宽绘制，所以每秒更新文字既不会创建对象也不需要重新排版，文字的宽度也不会随数字跳动。
+ * <p><strong>创建人: </strong> kelin
+ * <p><strong>版本: </strong> v 1.0.0
+ */
+final class DigitGlyphCache {
+
+    /**
+     * 需要测量的字形，前十个为数字，最后一个为冒号。
+     */
+    private static final String GLYPHS = "0123456789:";
+    private static final int COLON = 10;
+
+    private final float[] mAdvances = new float[GLYPHS.length()];
+    private final Paint.FontMetrics mFontMetrics = new Paint.FontMetrics();
+    /**
+     * 格式化后的文字，从后往前填充，有效内容为[mStart, mBuffer.length)。
+     */
+    private final char[] mBuffer = new char[24];
+    private int mStart = mBuffer.length;
+    /**
+     * 缓存对应的画笔配置。
+     */
+    private float mTextSize = -1;
+    private Typeface mTypeface;
+    /**
+     * 最宽数字的宽度，所有数字都按照这个宽度等宽排列。
+     */
+    private float mDigitWidth;
+    /**
+     * 文字垂直居中时基线相对于中心的偏移量。
+     */
+    private float mBaselineOffset;
+    /**
+     * 文字的行高。
+     */
+    private float mLineHeight;
+
+    /**
+     * 确保缓存与画笔的配置一致，配置没有变化时什么也不做。
+     */
+    void ensure(Paint paint) {
+        float textSize = paint.getTextSize();
+        Typeface typeface = paint.getTypeface();
+        if (textSize == mTextSize && typeface == mTypeface) {
+            return;
+        }
+        mTextSize = textSize;
+        mTypeface = typeface;
+        paint.getTextWidths(GLYPHS, mAdvances);
+        mDigitWidth = 0;
+        for (int i = 0; i < COLON; i++) {
+            mDigitWidth = Math.max(mDigitWidth, mAdvances[i]);
+        }
+        paint.getFontMetrics(mFontMetrics);
+        mBaselineOffset = -(mFontMetrics.ascent + mFontMetrics.descent) / 2;
+        mLineHeight = mFontMetrics.descent - mFontMetrics.ascent;
+    }
+
+    /**
+     * 将剩余时间格式化到内部的字符数组中。
+     *
+     * @param millisLeft 剩余的毫秒数，不足一秒的部分向上取整。
+     * @param mode       格式，{@link CountDownView#REMAINING_TEXT_SECONDS}或{@link CountDownView#REMAINING_TEXT_CLOCK}。
+     */
+    void format(long millisLeft, int mode) {
+        long seconds = toSeconds(millisLeft);
+        int index = mBuffer.length;
+        if (mode == CountDownView.REMAINING_TEXT_CLOCK) {
+            long s = seconds % 60;
+            mBuffer[--index] = (char) ('0' + s % 10);
+            mBuffer[--index] = (char) ('0' + s / 10);
+            mBuffer[--index] = ':';
+            long minutes = seconds / 60;
+            long hours = minutes / 60;
+            if (hours > 0) {
+                //超过一小时显示为"时:分:秒"。
+                minutes %= 60;
+            }
+            mBuffer[--index] = (char) ('0' + minutes % 10);
+            minutes /= 10;
+            do {
+                mBuffer[--index] = (char) ('0' + minutes % 10);
+                minutes /= 10;
+            } while (minutes > 0);
+            if (hours > 0) {
+                mBuffer[--index] = ':';
+                do {
+                    mBuffer[--index] = (char) ('0' + hours % 10);
+                    hours /= 10;
+                } while (hours > 0);
+            }
+        } else {
+            do {
+                mBuffer[--index] = (char) ('0' + seconds % 10);
+                seconds /= 10;
+            } while (seconds > 0);
+        }
+        mStart = index;
+    }
+
+    /**
+     * 将毫秒数换算成显示的秒数，不足一秒的部分向上取整。
+     */
+    static long toSeconds(long millisLeft) {
+        return millisLeft <= 0 ? 0 : (millisLeft + 999) / 1000;
+    }
+
+    /**
+     * 获取当前格式化后的文字的宽度。
+     */
+    float measure() {
+        float width = 0;
+        for (int i = mStart; i < mBuffer.length; i++) {
+            width += mBuffer[i] == ':' ? mAdvances[COLON] : mDigitWidth;
+        }
+        return width;
+    }
+
+    float getLineHeight() {
+        return mLineHeight;
+    }
+
+    /**
+     * 以指定的点为中心绘制当前格式化后的文字，画笔的对齐方式必须为{@link Paint.Align#CENTER}。
+     */
+    void draw(Canvas canvas, float cx, float cy, Paint paint) {
+        float x = cx - measure() / 2;
+        float y = cy + mBaselineOffset;
+        for (int i = mStart; i < mBuffer.length; i++) {
+            float advance = mBuffer[i] == ':' ? mAdvances[COLON] : mDigitWidth;
+            canvas.drawText(mBuffer, i, 1, x + advance / 2, y, paint);
+            x += advance;
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.kelin.countdownview;
+
+import android.animation.ValueAnimator;
+import android.annotation.TargetApi;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.os.Build;
+import android.os.PowerManager;
+import android.provider.Settings;
+
+import java.util.ArrayList;
+
+/**
+ * <strong>描述: </strong> 进程内共享的电源状态监听，为开启了自适应帧率的倒计时提供省电模式以及动画是否被关闭的状态。
+ * <p>只有存在监听者时才会注册广播，省电模式的状态会被缓存，倒计时调度时读取状态不会产生跨进程调用。该类只能在主线程中使用。
+ * <p><strong>创建人: </strong> kelin
+ * <p><strong>版本: </strong> v 1.0.0
+ */
+final class PowerStateMonitor {
+
+    private static PowerStateMonitor sInstance;
+
+    private final Context mContext;
+    private final ArrayList<OnPowerStateChangedListener> mListeners = new ArrayList<>();
+    /**
+     * 监听省电模式变化的广播，只在API 21以上存在。
+     */
+    private BroadcastReceiver mReceiver;
+    /**
+     * 缓存的省电模式状态，只在注册了广播后有效。
+     */
+    private boolean mPowerSaveMode;
+
+    private PowerStateMonitor(Context context) {
+        mContext = context.getApplicationContext();
+    }
+
+    static PowerStateMonitor getInstance(Context context) {
+        if (sInstance == null) {
+            sInstance = new PowerStateMonitor(context);
+        }
+        return sInstance;
+    }
+
+    /**
+     * 判断设备当前是否处于省电模式。
+     */
+    boolean isPowerSaveMode() {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.LOLLIPOP) {
+            return false;
+        }
+        return mReceiver != null ? mPowerSaveMode : queryPowerSaveMode();
+    }
+
+    @TargetApi(Build.VERSION_CODES.LOLLIPOP)
+    private boolean queryPowerSaveMode() {
+        PowerManager pm = (PowerManager) mContext.getSystemService(Context.POWER_SERVICE);
+        return pm != null && pm.isPowerSaveMode();
+    }
+
+    /**
+     * 判断系统的动画是否被关闭了(开发者选项中的动画程序时长缩放被设置为0)。
+     */
+    boolean areAnimationsDisabled() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            return !ValueAnimator.areAnimatorsEnabled();
+        } else if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR1) {
+            return Settings.Global.getFloat(mContext.getContentResolver(), Settings.Global.ANIMATOR_DURATION_SCALE, 1) == 0;
+        } else {
+            //noinspection deprecation
+            return Settings.System.getFloat(mContext.getContentResolver(), Settings.System.ANIMATOR_DURATION_SCALE, 1) == 0;
+        }
+    }
+
+    /**
+     * 添加状态变化的监听，第一个监听者被添加时注册广播。
+     */
+    void addListener(OnPowerStateChangedListener listener) {
+        if (mListeners.contains(listener)) {
+            return;
+        }
+        mListeners.add(listener);
+        if (mReceiver == null && Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+            mPowerSaveMode = queryPowerSaveMode();
+            mReceiver = new BroadcastReceiver() {
+                @Override
+                public void onReceive(Context context, Intent intent) {
+                    mPowerSaveMode = queryPowerSaveMode();
+                    for (int i = mListeners.size() - 1; i >= 0; i--) {
+                        mListeners.get(i).onPowerStateChanged();
+                    }
+                }
+            };
+            mContext.registerReceiver(mReceiver, new IntentFilter(PowerManager.ACTION_POWER_SAVE_MODE_CHANGED));
+        }
+    }
+
+    /**
+     * 移除状态变化的监听，最后一个监听者被移除时注销广播。
+     */
+    void removeListener(OnPowerStateChangedListener listener) {
+        mListeners.remove(listener);
+        if (mListeners.isEmpty() && mReceiver != null) {
+            mContext.unregisterReceiver(mReceiver);
+            mReceiver = null;
+        }
+    }
+
+    interface OnPowerStateChangedListener {
+        /**
+         * 省电模式发生变化时回调。
+         */
+        void onPowerStateChanged();
+    }
+}
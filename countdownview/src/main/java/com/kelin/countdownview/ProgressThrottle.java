@@ -0,0 +1,82 @@
+package com.kelin.countdownview;
+
+/**
+ * <strong>描述: </strong> 进度回调的节流器，决定某一帧的进度是否需要回调给{@link CountDownView.OnProgressListener}。
+ * <p>只有距离上一次回调的时间不小于最小间隔、并且进度的变化不小于最小变化量时才会回调，进度没有变化的帧总是会被合并掉。
+ * 这个类不依赖任何Android的API，也不会创建任何对象。
+ * <p><strong>创建人: </strong> kelin
+ * <p><strong>版本: </strong> v 1.0.0
+ */
+final class ProgressThrottle {
+
+    /**
+     * 两次回调之间的最小间隔，单位为毫秒。
+     */
+    private long mMinInterval;
+    /**
+     * 两次回调之间进度的最小变化量，范围为：0~1。
+     */
+    private float mMinDelta;
+    private long mLastTime;
+    /**
+     * 上一次回调的进度，小于0表示还没有回调过。
+     */
+    private float mLastFraction = -1;
+
+    void set(long minIntervalMillis, float minDelta) {
+        mMinInterval = Math.max(minIntervalMillis, 0);
+        mMinDelta = Math.max(minDelta, 0);
+    }
+
+    /**
+     * 获取两次回调之间最少会间隔多少毫秒。
+     *
+     * @param millisInFuture 倒计时的总时长，用来把最小变化量换算成时间。
+     */
+    long getMinWait(long millisInFuture) {
+        return Math.max(mMinInterval, (long) (mMinDelta * millisInFuture));
+    }
+
+    /**
+     * 重置状态，下一次判断一定会回调。
+     */
+    void reset() {
+        mLastFraction = -1;
+    }
+
+    /**
+     * 判断本次的进度是否需要回调，如果需要则记录下本次回调的时间和进度。
+     *
+     * @param now      当前时间。
+     * @param fraction 当前的进度，范围为：0~1。
+     * @param force    是否忽略节流条件强制回调，例如开始、跳转以及结束时，但是与上一次完全相同的进度仍然会被合并。
+     */
+    boolean shouldDeliver(long now, float fraction, boolean force) {
+        if (fraction == mLastFraction) {
+            return false;
+        }
+        if (!force && mLastFraction >= 0
+                && (now - mLastTime < mMinInterval || Math.abs(fraction - mLastFraction) < mMinDelta)) {
+            return false;
+        }
+        mLastTime = now;
+        mLastFraction = fraction;
+        return true;
+    }
+
+    /**
+     * 获取距离下一次可以回调还有多少毫秒，用来决定挂起时最晚什么时候需要醒来，最小为1毫秒。
+     *
+     * @param now            当前时间。
+     * @param fraction       当前的进度。
+     * @param millisInFuture 倒计时的总时长，用来把最小变化量换算成时间。
+     */
+    long getMillisUntilDue(long now, float fraction, long millisInFuture) {
+        if (mLastFraction < 0) {
+            return 1;
+        }
+        long intervalWait = mLastTime + mMinInterval - now;
+        long deltaWait = (long) Math.ceil((mLastFraction + mMinDelta - fraction) * millisInFuture);
+        return Math.max(Math.max(intervalWait, deltaWait), 1);
+    }
+}
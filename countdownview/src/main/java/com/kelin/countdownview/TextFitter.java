@@ -0,0 +1,198 @@
+package com.kelin.countdownview;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * <strong>描述: </strong> 自动调整文字大小的计算以及所有倒计时控件共享的计算结果缓存。
+ * <p>在给定的字体大小范围内找出能够放进指定半径的圆中的最大字体，以及对应的单行文字个数。每一种单行文字个数只在它有可能
+ * 超过当前最优结果时才会做二分查找，排版的次数不超过文字长度加上每次改进时二分查找的次数。
+ * <p>结果以文字内容、圆的半径、字体、额外的间距以及字体大小的范围作为键缓存，列表中反复绑定或重新测量相同的内容时不需要重复查找。
+ * 只有纯文本({@link String})才会被缓存。这个类不依赖任何Android的API，只能在主线程中使用。
+ * <p>缓存使用{@link LinkedHashMap}的访问顺序实现LRU，而不是像{@link TextLayoutCache}那样使用{@code android.util.LruCache}，
+ * 是为了让查找和缓存的逻辑可以直接在JVM上做单元测试，排版相关的Android代码都由{@link Measurer}的实现提供。
+ * <p><strong>创建人: </strong> kelin
+ * <p><strong>版本: </strong> v 1.0.0
+ */
+final class TextFitter {
+
+    /**
+     * 缓存的最大条目数。
+     */
+    private static final int MAX_SIZE = 64;
+
+    private static final Map<Key, Fit> sCache = new LinkedHashMap<Key, Fit>(16, 0.75F, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Fit> eldest) {
+            return size() > MAX_SIZE;
+        }
+    };
+    /**
+     * 用来查找的键，查找时不需要创建新的对象，只有在没有命中缓存时才会拷贝一个新的键放进缓存。
+     */
+    private static final Key sLookupKey = new Key();
+    /**
+     * 排版后的宽和高，每次测量时复用。
+     */
+    private static final int[] sSize = new int[2];
+
+    private TextFitter() {
+    }
+
+    /**
+     * 获取文字的自动调整结果，优先从缓存中获取。
+     *
+     * @param text        要显示的文字。
+     * @param typeface    排版使用的字体，只用来区分缓存。
+     * @param radius      文字需要放进的圆的半径。
+     * @param extraWidth  水平方向额外的间距。
+     * @param extraHeight 垂直方向额外的间距。
+     * @param minTextSize 字体大小的最小值，单位为px。
+     * @param maxTextSize 字体大小的最大值，单位为px。
+     * @param measurer    用来排版的工具，只有没有命中缓存时才会被使用。
+     */
+    static Fit obtain(CharSequence text, Object typeface, int radius, int extraWidth, int extraHeight, int minTextSize, int maxTextSize, Measurer measurer) {
+        if (!(text instanceof String)) {
+            return fit(text.length(), radius, extraWidth, extraHeight, minTextSize, maxTextSize, measurer);
+        }
+        sLookupKey.set((String) text, typeface, radius, extraWidth, extraHeight, minTextSize, maxTextSize);
+        Fit fit = sCache.get(sLookupKey);
+        if (fit == null) {
+            fit = fit(text.length(), radius, extraWidth, extraHeight, minTextSize, maxTextSize, measurer);
+            sCache.put(sLookupKey.copy(), fit);
+        }
+        return fit;
+    }
+
+    /**
+     * 不经过缓存直接查找最大的字体以及对应的单行文字个数。所有字体都放不下时使用最小的字体以及此时半径最小的单行文字个数。
+     *
+     * @param length 文字的长度，必须大于0。
+     */
+    static Fit fit(int length, int radius, int extraWidth, int extraHeight, int minTextSize, int maxTextSize, Measurer measurer) {
+        if (maxTextSize < minTextSize) {
+            maxTextSize = minTextSize;
+        }
+        int bestTextSize = minTextSize - 1;
+        int bestLineTextLength = 0;
+        int fallbackLineTextLength = 1;
+        int fallbackRadius = Integer.MAX_VALUE;
+        for (int lineTextLength = 1; lineTextLength <= length && bestTextSize < maxTextSize; lineTextLength++) {
+            //先判断比当前最优结果大一号的字体能否放下，放不下就不需要再查找了。
+            int low = bestTextSize + 1;
+            int r = measureRadius(measurer, low, lineTextLength, extraWidth, extraHeight);
+            if (bestLineTextLength == 0 && r < fallbackRadius) {
+                fallbackRadius = r;
+                fallbackLineTextLength = lineTextLength;
+            }
+            if (r > radius) {
+                continue;
+            }
+            int high = maxTextSize;
+            while (low < high) {
+                int mid = (low + high + 1) >>> 1;
+                if (measureRadius(measurer, mid, lineTextLength, extraWidth, extraHeight) <= radius) {
+                    low = mid;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            bestTextSize = low;
+            bestLineTextLength = lineTextLength;
+        }
+        if (bestLineTextLength == 0) {
+            return new Fit(minTextSize, fallbackLineTextLength);
+        }
+        return new Fit(bestTextSize, bestLineTextLength);
+    }
+
+    private static int measureRadius(Measurer measurer, int textSize, int lineTextLength, int extraWidth, int extraHeight) {
+        measurer.measure(textSize, lineTextLength, sSize);
+        return CountDownGeometry.computeRadius(sSize[0] + extraWidth, sSize[1] + extraHeight);
+    }
+
+    /**
+     * 清空缓存。
+     */
+    static void clear() {
+        sCache.clear();
+    }
+
+    interface Measurer {
+        /**
+         * 按照指定的字体大小以及单行文字个数排版。
+         *
+         * @param outSize 用来返回排版后的宽和高。
+         */
+        void measure(int textSize, int lineTextLength, int[] outSize);
+    }
+
+    /**
+     * 自动调整的结果。
+     */
+    static final class Fit {
+        final int textSize;
+        final int lineTextLength;
+
+        Fit(int textSize, int lineTextLength) {
+            this.textSize = textSize;
+            this.lineTextLength = lineTextLength;
+        }
+    }
+
+    private static final class Key {
+        private String mText;
+        private Object mTypeface;
+        private int mRadius;
+        private int mExtraWidth;
+        private int mExtraHeight;
+        private int mMinTextSize;
+        private int mMaxTextSize;
+
+        void set(String text, Object typeface, int radius, int extraWidth, int extraHeight, int minTextSize, int maxTextSize) {
+            mText = text;
+            mTypeface = typeface;
+            mRadius = radius;
+            mExtraWidth = extraWidth;
+            mExtraHeight = extraHeight;
+            mMinTextSize = minTextSize;
+            mMaxTextSize = maxTextSize;
+        }
+
+        Key copy() {
+            Key key = new Key();
+            key.set(mText, mTypeface, mRadius, mExtraWidth, mExtraHeight, mMinTextSize, mMaxTextSize);
+            return key;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return mRadius == key.mRadius
+                    && mExtraWidth == key.mExtraWidth
+                    && mExtraHeight == key.mExtraHeight
+                    && mMinTextSize == key.mMinTextSize
+                    && mMaxTextSize == key.mMaxTextSize
+                    && mTypeface == key.mTypeface
+                    && mText.equals(key.mText);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = mText.hashCode();
+            result = 31 * result + (mTypeface != null ? mTypeface.hashCode() : 0);
+            result = 31 * result + mRadius;
+            result = 31 * result + mExtraWidth;
+            result = 31 * result + mExtraHeight;
+            result = 31 * result + mMinTextSize;
+            result = 31 * result + mMaxTextSize;
+            return result;
+        }
+    }
+}
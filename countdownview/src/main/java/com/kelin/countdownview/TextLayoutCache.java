@@ -0,0 +1,111 @@
+package com.kelin.countdownview;
+
+import android.graphics.Typeface;
+import android.text.Layout;
+import android.text.StaticLayout;
+import android.text.TextPaint;
+import android.util.LruCache;
+
+/**
+ * <strong>描述: </strong> 所有倒计时控件共享的文字排版缓存。
+ * <p>以文字内容、字体大小、字体以及单行文字个数作为键缓存{@link StaticLayout}，内容相同的控件(例如列表中大量的"跳过"按钮)
+ * 只需要排版一次。缓存的排版使用自己的画笔，颜色不参与排版，绘制前由使用者把颜色同步到排版的画笔上，所以修改颜色不需要重新排版。
+ * <p>只有纯文本({@link String})才会被缓存，带有样式的文字每次都会重新排版。该类只能在主线程中使用。
+ * <p><strong>创建人: </strong> kelin
+ * <p><strong>版本: </strong> v 1.0.0
+ */
+final class TextLayoutCache {
+
+    /**
+     * 缓存的最大条目数。
+     */
+    private static final int MAX_SIZE = 64;
+
+    private static final LruCache<Key, StaticLayout> sCache = new LruCache<>(MAX_SIZE);
+    /**
+     * 用来查找的键，查找时不需要创建新的对象，只有在没有命中缓存时才会拷贝一个新的键放进缓存。
+     */
+    private static final Key sLookupKey = new Key();
+
+    private TextLayoutCache() {
+    }
+
+    /**
+     * 获取文字的排版，优先从缓存中获取。
+     *
+     * @param text           要排版的文字。
+     * @param paint          用来排版的画笔，只有字体大小以及字体会影响排版。
+     * @param lineTextLength 单行文字的个数，用作换行的依据。
+     * @return 返回排版后的结果，调用者不能修改排版画笔中除颜色以外的任何属性。
+     */
+    static StaticLayout obtain(CharSequence text, TextPaint paint, int lineTextLength) {
+        if (!(text instanceof String)) {
+            return createLayout(text, paint, lineTextLength);
+        }
+        sLookupKey.set((String) text, paint.getTextSize(), paint.getTypeface(), lineTextLength);
+        StaticLayout layout = sCache.get(sLookupKey);
+        if (layout == null) {
+            layout = createLayout(text, new TextPaint(paint), lineTextLength);
+            sCache.put(sLookupKey.copy(), layout);
+        }
+        return layout;
+    }
+
+    /**
+     * 不经过缓存直接排版，返回的排版直接使用传入的画笔。
+     */
+    static StaticLayout createLayout(CharSequence text, TextPaint paint, int lineTextLength) {
+        return new StaticLayout(text, paint, (int) paint.measureText(text, 0, lineTextLength), Layout.Alignment.ALIGN_NORMAL, 1F, 0, false);
+    }
+
+    /**
+     * 清空缓存。
+     */
+    static void clear() {
+        sCache.evictAll();
+    }
+
+    private static final class Key {
+        private String mText;
+        private float mTextSize;
+        private Typeface mTypeface;
+        private int mLineTextLength;
+
+        void set(String text, float textSize, Typeface typeface, int lineTextLength) {
+            mText = text;
+            mTextSize = textSize;
+            mTypeface = typeface;
+            mLineTextLength = lineTextLength;
+        }
+
+        Key copy() {
+            Key key = new Key();
+            key.set(mText, mTextSize, mTypeface, mLineTextLength);
+            return key;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return mTextSize == key.mTextSize
+                    && mLineTextLength == key.mLineTextLength
+                    && mTypeface == key.mTypeface
+                    && mText.equals(key.mText);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = mText.hashCode();
+            result = 31 * result + Float.floatToIntBits(mTextSize);
+            result = 31 * result + (mTypeface != null ? mTypeface.hashCode() : 0);
+            result = 31 * result + mLineTextLength;
+            return result;
+        }
+    }
+}
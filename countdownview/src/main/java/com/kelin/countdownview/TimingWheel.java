@@ -0,0 +1,267 @@
+package com.kelin.countdownview;
+
+import java.util.List;
+
+/**
+ * <strong>描述: </strong> 分层时间轮，用来管理大量的截止时间。
+ * <p>时间轮共有{@value #LEVELS}层，每层{@value #SLOTS}个槽，第一层每个槽代表一个刻度，上一层的每个槽代表下一层转一圈的时长，
+ * 截止时间较远的节点放在较高的层中，随着时间的推进逐层下沉，直到在第一层中到期。每个槽都是一个双向链表，所以添加和移除节点的时间复杂度都是O(1)，
+ * 推进时间时会跳过没有节点的层，即使很长时间没有推进也不需要逐个刻度地遍历。超出最高层范围的节点会停留在最高层，每转一圈重新放置一次。
+ * <p>这个类不依赖任何Android的API，也不是线程安全的。
+ * <p><strong>创建人: </strong> kelin
+ * <p><strong>版本: </strong> v 1.0.0
+ */
+final class TimingWheel<N extends TimingWheel.Node> {
+
+    /**
+     * 每层槽数的位数。
+     */
+    private static final int BITS = 6;
+    private static final int SLOTS = 1 << BITS;
+    private static final long MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+    /**
+     * 所有层能够表示的最大刻度数。
+     */
+    private static final long SPAN = 1L << (BITS * LEVELS);
+    /**
+     * 已经到期、等待下一次推进时移除的节点所在的槽。
+     */
+    private static final int DUE_SLOT = SLOTS * LEVELS;
+
+    private final long mTickMillis;
+    /**
+     * 所有槽的链表头，最后一个是{@link #DUE_SLOT}。
+     */
+    private final Node[] mSlots = new Node[DUE_SLOT + 1];
+    /**
+     * 每一层中的节点数，最后一个是已经到期的节点数。
+     */
+    private final int[] mLevelCounts = new int[LEVELS + 1];
+    /**
+     * 当前的刻度。
+     */
+    private long mCurrentTick;
+    private int mSize;
+
+    /**
+     * @param tickMillis 每个刻度的时长，单位为毫秒，节点最多会比截止时间晚一个刻度到期，但是不会提前。
+     * @param now        当前时间。
+     */
+    TimingWheel(long tickMillis, long now) {
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("the tickMillis must be > 0!");
+        }
+        mTickMillis = tickMillis;
+        mCurrentTick = now / tickMillis;
+    }
+
+    int size() {
+        return mSize;
+    }
+
+    /**
+     * 添加一个节点，节点不能已经在时间轮中。
+     *
+     * @param deadline 截止时间，必须与推进时使用相同的时间基准。
+     */
+    void add(N node, long deadline) {
+        if (node.mSlot >= 0) {
+            throw new IllegalStateException("The node is already scheduled!");
+        }
+        node.mDeadline = deadline;
+        node.mExpiryTick = deadline <= 0 ? 0 : (deadline + mTickMillis - 1) / mTickMillis;
+        place(node);
+        mSize++;
+    }
+
+    /**
+     * 移除一个节点。
+     *
+     * @return 如果节点在时间轮中返回true，否则返回false。
+     */
+    boolean remove(N node) {
+        if (node.mSlot < 0) {
+            return false;
+        }
+        unlink(node);
+        mSize--;
+        return true;
+    }
+
+    /**
+     * 把时间推进到指定的时间，所有到期的节点都会被移除并按照到期的先后添加到列表中。
+     *
+     * @param now     当前时间，比上一次推进的时间早时什么也不做。
+     * @param expired 用来接收到期节点的列表。
+     */
+    @SuppressWarnings("unchecked")
+    void advance(long now, List<N> expired) {
+        long target = now / mTickMillis;
+        expireSlot(DUE_SLOT, (List<Node>) expired);
+        while (mCurrentTick < target) {
+            int level = 0;
+            while (level < LEVELS && mLevelCounts[level] == 0) {
+                level++;
+            }
+            if (level == LEVELS) {
+                mCurrentTick = target;
+                break;
+            }
+            if (level > 0) {
+                //下面的层都是空的，直接跳到该层下一个槽被处理之前。
+                long last = mCurrentTick | ((1L << (BITS * level)) - 1);
+                if (last >= target) {
+                    mCurrentTick = target;
+                    break;
+                }
+                mCurrentTick = last;
+            }
+            mCurrentTick++;
+            cascade();
+            expireSlot((int) (mCurrentTick & MASK), (List<Node>) expired);
+            expireSlot(DUE_SLOT, (List<Node>) expired);
+        }
+    }
+
+    /**
+     * 获取下一次需要推进的时间，在这个时间之前推进不会有任何节点到期。
+     *
+     * @return 返回下一次需要推进的时间，没有任何节点时返回{@link Long#MAX_VALUE}。
+     */
+    long getNextWakeUpTime() {
+        if (mSize == 0) {
+            return Long.MAX_VALUE;
+        }
+        if (mLevelCounts[LEVELS] > 0) {
+            return mCurrentTick * mTickMillis;
+        }
+        long next = Long.MAX_VALUE;
+        for (int level = 0; level < LEVELS; level++) {
+            if (mLevelCounts[level] == 0) {
+                continue;
+            }
+            int shift = BITS * level;
+            long index = mCurrentTick >> shift;
+            //第一层当前的槽已经处理过了，上层当前的槽只可能存放了下一圈的节点。
+            for (int k = 1, max = level == 0 ? SLOTS - 1 : SLOTS; k <= max; k++) {
+                if (mSlots[level * SLOTS + (int) ((index + k) & MASK)] != null) {
+                    next = Math.min(next, level == 0 ? mCurrentTick + k : (index + k) << shift);
+                    break;
+                }
+            }
+        }
+        return next * mTickMillis;
+    }
+
+    /**
+     * 当前刻度到达某一层的边界时，把上一层对应槽中的节点重新放置到下面的层中。
+     */
+    private void cascade() {
+        for (int level = 1; level < LEVELS; level++) {
+            int shift = BITS * level;
+            if ((mCurrentTick & ((1L << shift) - 1)) != 0) {
+                return;
+            }
+            int slot = level * SLOTS + (int) ((mCurrentTick >> shift) & MASK);
+            Node node = detach(slot);
+            while (node != null) {
+                Node next = node.mNext;
+                place(node);
+                node = next;
+            }
+        }
+    }
+
+    /**
+     * 移除槽中所有到期的节点，还没有到期的节点(例如超出范围的节点)会被重新放置。
+     */
+    private void expireSlot(int slot, List<Node> expired) {
+        Node node = detach(slot);
+        while (node != null) {
+            Node next = node.mNext;
+            if (node.mExpiryTick <= mCurrentTick) {
+                node.mPrev = null;
+                node.mNext = null;
+                mSize--;
+                expired.add(node);
+            } else {
+                place(node);
+            }
+            node = next;
+        }
+    }
+
+    /**
+     * 取出槽中的整个链表，链表中的节点会被标记为不在时间轮中。
+     */
+    private Node detach(int slot) {
+        Node head = mSlots[slot];
+        if (head != null) {
+            mSlots[slot] = null;
+            int level = slot / SLOTS;
+            for (Node node = head; node != null; node = node.mNext) {
+                node.mSlot = -1;
+                mLevelCounts[level]--;
+            }
+        }
+        return head;
+    }
+
+    /**
+     * 根据节点距离到期还有多少个刻度把它放到对应的层和槽中。
+     */
+    private void place(Node node) {
+        long delta = node.mExpiryTick - mCurrentTick;
+        int slot;
+        if (delta <= 0) {
+            slot = DUE_SLOT;
+        } else {
+            //超出范围的节点先放在最高层，转到时再重新放置。
+            long expiryTick = delta < SPAN ? node.mExpiryTick : mCurrentTick + SPAN - 1;
+            int level = 0;
+            while (delta >= 1L << (BITS * (level + 1)) && level < LEVELS - 1) {
+                level++;
+            }
+            slot = level * SLOTS + (int) ((expiryTick >> (BITS * level)) & MASK);
+        }
+        Node head = mSlots[slot];
+        node.mPrev = null;
+        node.mNext = head;
+        if (head != null) {
+            head.mPrev = node;
+        }
+        mSlots[slot] = node;
+        node.mSlot = slot;
+        mLevelCounts[slot / SLOTS]++;
+    }
+
+    private void unlink(Node node) {
+        if (node.mPrev != null) {
+            node.mPrev.mNext = node.mNext;
+        } else {
+            mSlots[node.mSlot] = node.mNext;
+        }
+        if (node.mNext != null) {
+            node.mNext.mPrev = node.mPrev;
+        }
+        mLevelCounts[node.mSlot / SLOTS]--;
+        node.mPrev = null;
+        node.mNext = null;
+        node.mSlot = -1;
+    }
+
+    /**
+     * 时间轮中的节点，每个节点同一时间只能在一个时间轮中。
+     */
+    static class Node {
+        long mDeadline;
+        long mExpiryTick;
+        Node mPrev;
+        Node mNext;
+        /**
+         * 节点所在的槽，小于0表示不在时间轮中。
+         */
+        int mSlot = -1;
+    }
+}
@@ -0,0 +1,42 @@
+package com.kelin.countdownview;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * 按剩余进度变色的颜色表的单元测试。
+ */
+public class ColorStopsTest {
+
+    private static final int RED = 0xFFFF0000;
+    private static final int YELLOW = 0xFFFFFF00;
+    private static final int GREEN = 0xFF00FF00;
+
+    @Test
+    public void thresholds_useFirstStopNotBelowFraction() {
+        ColorStops stops = new ColorStops(new int[]{RED, YELLOW, GREEN}, new float[]{0.3F, 0.6F, 1}, false);
+        assertEquals(RED, stops.getColor(0));
+        assertEquals(RED, stops.getColor(0.2F));
+        assertEquals(YELLOW, stops.getColor(0.5F));
+        assertEquals(GREEN, stops.getColor(0.9F));
+        assertEquals(GREEN, stops.getColor(1.5F));
+    }
+
+    @Test
+    public void interpolation_blendsNeighbourStops() {
+        ColorStops stops = new ColorStops(new int[]{RED, GREEN}, null, true);
+        assertEquals(RED, stops.getColor(0));
+        assertEquals(GREEN, stops.getColor(1));
+        int middle = stops.getColor(0.5F);
+        assertEquals(0xFF, middle >>> 24);
+        assertEquals(0x80, (middle >> 16) & 0xFF, 1);
+        assertEquals(0x80, (middle >> 8) & 0xFF, 1);
+        assertEquals(0, middle & 0xFF);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void mismatchedPositions_throw() {
+        new ColorStops(new int[]{RED, GREEN}, new float[]{1}, true);
+    }
+}
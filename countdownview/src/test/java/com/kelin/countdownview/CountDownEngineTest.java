@@ -0,0 +1,164 @@
+package com.kelin.countdownview;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * 倒计时引擎的单元测试，使用假的时间来源，不依赖Android环境。
+ */
+public class CountDownEngineTest {
+
+    private FakeTimeSource mTime;
+    private CountDownEngine mEngine;
+
+    @Before
+    public void setUp() {
+        mTime = new FakeTimeSource();
+        mEngine = new CountDownEngine(mTime);
+    }
+
+    @Test
+    public void computeSweep_coversAllModes() {
+        assertEquals(-90, CountDownEngine.computeSweep(CountDownEngine.CLOCKWISE_FROM_EXIST, 360, 90), 0);
+        assertEquals(90, CountDownEngine.computeSweep(CountDownEngine.ANTICLOCKWISE_FROM_EXIST, 360, 90), 0);
+        assertEquals(270, CountDownEngine.computeSweep(CountDownEngine.CLOCKWISE_FROM_NOTHING, 360, 90), 0);
+        assertEquals(-270, CountDownEngine.computeSweep(CountDownEngine.ANTICLOCKWISE_FROM_NOTHING, 360, 90), 0);
+    }
+
+    @Test
+    public void smooth_finishesAtExactDuration() {
+        mEngine.setDuration(3000).setSmooth(true).start();
+        assertEquals(3000, mEngine.getMillisInFuture());
+        mTime.now = 2999;
+        assertEquals(CountDownEngine.UPDATE_PROGRESS, mEngine.update());
+        mTime.now = 3000;
+        assertEquals(CountDownEngine.UPDATE_FINISHED, mEngine.update());
+        assertEquals(CountDownEngine.STATE_FINISHED, mEngine.getState());
+        assertEquals(0, mEngine.getSweep(), 0);
+    }
+
+    @Test
+    public void step_onlyReportsChangesOnNewStep() {
+        mEngine.setDuration(3600).start();
+        assertEquals(CountDownEngine.UPDATE_NONE, mEngine.update());
+        mTime.now = 5;
+        assertEquals(CountDownEngine.UPDATE_PROGRESS, mEngine.update());
+        mTime.now = 6;
+        assertEquals(CountDownEngine.UPDATE_NONE, mEngine.update());
+    }
+
+    @Test
+    public void pauseAndResume_keepRemainingTime() {
+        mEngine.setDuration(1000).setSmooth(true).start();
+        mTime.now = 400;
+        mEngine.pause();
+        mTime.now = 10_000;
+        assertEquals(600, mEngine.getRemainingMillis());
+        assertEquals(CountDownEngine.UPDATE_NONE, mEngine.update());
+        mEngine.resume();
+        mTime.now = 10_599;
+        assertEquals(CountDownEngine.UPDATE_PROGRESS, mEngine.update());
+        mTime.now = 10_600;
+        assertEquals(CountDownEngine.UPDATE_FINISHED, mEngine.update());
+    }
+
+    @Test
+    public void seekTo_movesRemainingTimeAndKeepsPause() {
+        mEngine.setDuration(1000).setSmooth(true).setProgressMode(CountDownEngine.ANTICLOCKWISE_FROM_EXIST).start();
+        mEngine.pause();
+        mEngine.seekTo(0.75F);
+        assertTrue(mEngine.isPaused());
+        assertEquals(250, mEngine.getRemainingMillis());
+        assertEquals(90, mEngine.getSweep(), 0.001F);
+    }
+
+    @Test
+    public void step_subSecondDurationFinishesOnTime() {
+        mEngine.setDuration(200).start();
+        assertEquals(200, mEngine.getMillisInFuture());
+        mTime.now = 199;
+        assertNotEquals(CountDownEngine.UPDATE_FINISHED, mEngine.update());
+        mTime.now = 200;
+        assertEquals(CountDownEngine.UPDATE_FINISHED, mEngine.update());
+    }
+
+    @Test
+    public void step_oneStepPerSecondWakesOnlyOnStepChange() {
+        mEngine.setDuration(2 * 60 * 60 * 1000).setStepCount(2 * 60 * 60).start();
+        mTime.now = 1;
+        assertEquals(CountDownEngine.UPDATE_PROGRESS, mEngine.update());
+        assertEquals(-(2 * 60 * 60 - 1) * 360F / (2 * 60 * 60), mEngine.getSweep(), 0.0001F);
+        assertEquals(1000, mEngine.getMillisUntilNextStep(mTime.now));
+        mTime.now = 400;
+        assertEquals(601, mEngine.getMillisUntilNextStep(mTime.now));
+        assertEquals(CountDownEngine.UPDATE_NONE, mEngine.update());
+        mTime.now = 1001;
+        assertEquals(CountDownEngine.UPDATE_PROGRESS, mEngine.update());
+        mTime.now = 2000;
+        assertEquals(CountDownEngine.UPDATE_NONE, mEngine.update());
+    }
+
+    @Test
+    public void stepJitter_measuredAgainstExactBoundaries() {
+        //3000/360的刻度间隔为8.33毫秒，截断为8毫秒时误差会随着刻度累积。
+        mEngine.setDuration(3000).start();
+        CountDownMetrics metrics = new CountDownMetrics();
+        metrics.onStart(0, 0, mEngine.getMillisInFuture(), mEngine.getStepCount(), mEngine.getDuration());
+        int result = CountDownEngine.UPDATE_NONE;
+        while (result != CountDownEngine.UPDATE_FINISHED) {
+            mTime.now++;
+            result = mEngine.update();
+            if (result != CountDownEngine.UPDATE_FINISHED) {
+                metrics.onTick(mTime.now, result == CountDownEngine.UPDATE_PROGRESS, mEngine.getMillisSinceStep(mTime.now));
+            }
+        }
+        metrics.onFinish(mTime.now, true);
+        assertEquals(0, metrics.getMaxJitterMillis());
+        assertEquals(metrics.getTicksScheduled(), metrics.getTicksDelivered());
+
+        //每隔5毫秒检查一次时，抖动就是距离真正的刻度边界的时间。
+        mTime.now = 0;
+        mEngine.restart();
+        mTime.now = 11;
+        assertEquals(CountDownEngine.UPDATE_PROGRESS, mEngine.update());
+        //剩余2989毫秒，当前刻度在剩余2991毫秒时到达。
+        assertEquals(2, mEngine.getMillisSinceStep(mTime.now));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void start_twiceThrows() {
+        mEngine.start();
+        mEngine.start();
+    }
+
+    @Test
+    public void manyEngines_shareOneTimeSource() {
+        CountDownEngine[] engines = new CountDownEngine[10_000];
+        for (int i = 0; i < engines.length; i++) {
+            engines[i] = new CountDownEngine(mTime).setDuration(1000 + i).setSmooth(true);
+            engines[i].start();
+        }
+        int finished = 0;
+        for (mTime.now = 0; finished < engines.length; mTime.now += 16) {
+            for (CountDownEngine engine : engines) {
+                if (engine.update(mTime.now) == CountDownEngine.UPDATE_FINISHED) {
+                    finished++;
+                    //结束的时间与要求的时长相差不超过一帧。
+                    assertTrue(mTime.now - engine.getMillisInFuture() < 16);
+                }
+            }
+        }
+        assertEquals(engines.length, finished);
+    }
+
+    private static class FakeTimeSource implements CountDownEngine.TimeSource {
+        long now;
+
+        @Override
+        public long now() {
+            return now;
+        }
+    }
+}
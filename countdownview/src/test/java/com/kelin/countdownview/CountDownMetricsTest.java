@@ -0,0 +1,58 @@
+package com.kelin.countdownview;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * 计时与绘制指标的单元测试，使用假的时间来源，不依赖Android环境。
+ */
+public class CountDownMetricsTest {
+
+    private long mNow;
+    private final CountDownEngine.TimeSource mTime = new CountDownEngine.TimeSource() {
+        @Override
+        public long now() {
+            return mNow;
+        }
+    };
+
+    @Test
+    public void attachToHalfElapsedDeadline_reportsNoJitterOrDrops() {
+        for (boolean smooth : new boolean[]{true, false}) {
+            CountDownEngine engine = new CountDownEngine(mTime).setDuration(3000).setSmooth(smooth);
+            CountDownMetrics metrics = new CountDownMetrics();
+            //截止时间已经过去了一半才开始显示。
+            mNow = 1500;
+            engine.start(0);
+            engine.update(mNow);
+            metrics.onStart(0, mNow, engine.getMillisInFuture(), smooth ? 0 : engine.getStepCount(), engine.getDuration());
+            int frame = smooth ? 16 : 1;
+            int result = CountDownEngine.UPDATE_NONE;
+            while (result != CountDownEngine.UPDATE_FINISHED) {
+                mNow += frame;
+                result = engine.update(mNow);
+                if (result != CountDownEngine.UPDATE_FINISHED) {
+                    metrics.onTick(mNow, result == CountDownEngine.UPDATE_PROGRESS, engine.getMillisSinceStep(mNow));
+                }
+            }
+            metrics.onFinish(mNow, true);
+            String message = smooth ? "smooth" : "step";
+            assertEquals(message, 0, metrics.getMaxJitterMillis());
+            assertTrue(message, metrics.getTicksDelivered() >= metrics.getTicksScheduled());
+            assertEquals(message, 3000, metrics.getActualMillis(), frame);
+        }
+    }
+
+    @Test
+    public void seekWhilePaused_keepsActualMillis() {
+        CountDownMetrics metrics = new CountDownMetrics();
+        metrics.onStart(0, 0, 10000, 0, 10000);
+        metrics.onPause(1000);
+        //暂停期间跳转到已经流逝500毫秒的位置，恢复后再走2500毫秒。
+        metrics.onSeek(2000, 500);
+        metrics.onResume(3000);
+        metrics.onFinish(5500, true);
+        assertEquals(3000, metrics.getActualMillis());
+    }
+}
@@ -0,0 +1,428 @@
+package com.kelin.countdownview;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.RectF;
+import android.os.Handler;
+import android.os.Looper;
+import android.view.View;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowChoreographer;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * 在JVM上离屏绘制{@link CountDownView}的回归测试。
+ * <p>倒计时由Robolectric的假时钟驱动，每一帧都会绘制到一个离屏的Bitmap画布上，并校验进度条的几何形状、每帧的绘制调用次数，
+ * 以及经过{@link CountDownClock}驱动的每一帧刷新和绘制都不会创建对象。
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 26)
+public class CountDownViewRenderTest {
+
+    /**
+     * 假时钟每一帧前进的毫秒数。
+     */
+    private static final int FRAME_MILLIS = 16;
+    /**
+     * 每一帧允许的最多绘制调用次数：背景圆、文字以及进度条。
+     */
+    private static final int MAX_DRAW_CALLS_PER_FRAME = 3;
+    private static final int PADDING = 40;
+    private static final float DELTA = 0.01F;
+
+    private RecordingCanvas mCanvas;
+
+    @Before
+    public void setUp() {
+        ShadowChoreographer.setPostFrameCallbackDelay(FRAME_MILLIS);
+        mCanvas = new RecordingCanvas(Bitmap.createBitmap(200, 200, Bitmap.Config.ARGB_8888));
+    }
+
+    @After
+    public void tearDown() {
+        //让共享时钟跑完最后一帧，没有监听者后它会自己停下来，不影响下一个测试。
+        ShadowLooper.idleMainLooper(FRAME_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    @Test
+    public void progressModes_drawExpectedArcs() {
+        assertArcs(CountDownView.CLOCKWISE_FROM_EXIST, -360, 0);
+        assertArcs(CountDownView.CLOCKWISE_FROM_NOTHING, 0, 360);
+        assertArcs(CountDownView.ANTICLOCKWISE_FROM_EXIST, 360, 0);
+        assertArcs(CountDownView.ANTICLOCKWISE_FROM_NOTHING, 0, -360);
+    }
+
+    @Test
+    public void roundStrokeCap_appliedToProgressBar() {
+        for (boolean round : new boolean[]{true, false}) {
+            CountDownView view = createView(new CountDownStyle.Builder(RuntimeEnvironment.application)
+                    .setRoundStrokeCap(round)
+                    .build());
+            view.start();
+            render(view);
+            assertEquals(round ? Paint.Cap.ROUND : Paint.Cap.BUTT, mCanvas.mArcPaint.getStrokeCap());
+            runToEnd(view, null);
+        }
+    }
+
+    @Test
+    public void sleepingStepFrames_doNotAllocate() {
+        //每个刻度为250毫秒，与剩余秒数的变化对齐，控件在刻度之间通过Handler休眠。
+        CountDownView view = createView(remainingTextStyle()).setDuration(360 * 250);
+        assertFramesDoNotAllocate(view, 250);
+    }
+
+    @Test
+    public void smoothFrames_doNotAllocate() {
+        CountDownView view = createView(remainingTextStyle())
+                .setDuration(60000)
+                .setSmoothProgress(true);
+        assertFramesDoNotAllocate(view, 0);
+    }
+
+    @Test
+    public void colorStopsFrames_doNotAllocate() {
+        CountDownView view = createView(remainingTextStyle())
+                .setDuration(60000)
+                .setSmoothProgress(true)
+                .setProgressColorStops(new int[]{Color.GREEN, Color.YELLOW, Color.RED}, null, true);
+        assertFramesDoNotAllocate(view, 0);
+    }
+
+    @Test
+    public void detachedSleepingCountDown_stillFinishes() {
+        CountDownView view = createView(null);
+        //每个刻度为50毫秒，控件在刻度之间休眠，并且从来没有被添加到窗口上。
+        view.setDuration(18000);
+        final int[] finished = new int[1];
+        view.setOnFinishListener(new CountDownView.OnFinishListener() {
+            @Override
+            public void onFinish() {
+                finished[0]++;
+            }
+        });
+        view.start();
+        ShadowLooper.idleMainLooper(18000 + FRAME_MILLIS, TimeUnit.MILLISECONDS);
+        assertFalse(view.isStarted());
+        assertEquals(1, finished[0]);
+    }
+
+    @Test
+    public void groupOfSleepingViews_startedIndividually_finishesOnce() {
+        CountDownView first = createView(null).setDuration(18000);
+        CountDownView second = createView(null).setDuration(36000);
+        final int[] finished = new int[1];
+        CountDownGroup group = new CountDownGroup()
+                .add(first, second)
+                .setOnFinishListener(new CountDownView.OnFinishListener() {
+                    @Override
+                    public void onFinish() {
+                        finished[0]++;
+                    }
+                });
+        first.start();
+        second.start();
+        assertTrue(group.isStarted());
+        ShadowLooper.idleMainLooper(18000 + FRAME_MILLIS, TimeUnit.MILLISECONDS);
+        assertFalse(first.isStarted());
+        assertEquals(0, finished[0]);
+        ShadowLooper.idleMainLooper(18000, TimeUnit.MILLISECONDS);
+        assertFalse(group.isStarted());
+        assertEquals(1, finished[0]);
+    }
+
+    @Test
+    public void group_doesNotTickIdleOrPausedViews() {
+        CountDownView idle = createView(null).setDuration(1000);
+        CountDownView paused = createView(null).setDuration(1000);
+        CountDownView running = createView(null).setDuration(1000);
+        final int[] progress = new int[2];
+        idle.setOnProgressListener(new CountDownView.OnProgressListener() {
+            @Override
+            public void onProgress(long remainingMillis, float fraction) {
+                progress[0]++;
+            }
+        });
+        paused.setOnProgressListener(new CountDownView.OnProgressListener() {
+            @Override
+            public void onProgress(long remainingMillis, float fraction) {
+                progress[1]++;
+            }
+        });
+        new CountDownGroup().add(idle, paused, running);
+        paused.start();
+        running.start();
+        paused.pause();
+        progress[0] = 0;
+        progress[1] = 0;
+        ShadowLooper.idleMainLooper(500, TimeUnit.MILLISECONDS);
+        assertTrue(running.isStarted());
+        assertEquals(0, progress[0]);
+        assertEquals(0, progress[1]);
+    }
+
+    @Test
+    public void group_lastViewFinishedByClick_finishesGroup() {
+        CountDownView first = createView(null).setDuration(1000);
+        CountDownView second = createView(null).setDuration(36000);
+        final int[] finished = new int[1];
+        CountDownGroup group = new CountDownGroup()
+                .add(first, second)
+                .setOnFinishListener(new CountDownView.OnFinishListener() {
+                    @Override
+                    public void onFinish() {
+                        finished[0]++;
+                    }
+                });
+        group.start();
+        ShadowLooper.idleMainLooper(1000 + FRAME_MILLIS, TimeUnit.MILLISECONDS);
+        assertFalse(first.isStarted());
+        assertEquals(0, finished[0]);
+        second.performClick();
+        ShadowLooper.idleMainLooper();
+        assertFalse(group.isStarted());
+        assertEquals(1, finished[0]);
+
+        group.start();
+        group.cancel();
+        ShadowLooper.idleMainLooper();
+        assertEquals(1, finished[0]);
+    }
+
+    /**
+     * 完整地跑完一次倒计时，并校验进度条的起点、终点、方向以及变化是单调的。
+     */
+    private void assertArcs(int mode, float from, float to) {
+        CountDownView view = createView(new CountDownStyle.Builder(RuntimeEnvironment.application)
+                .setProgressBarMode(mode)
+                .build());
+        view.setDuration(1000);
+        view.start();
+        ArrayList<Float> sweeps = new ArrayList<>();
+        render(view);
+        sweeps.add(mCanvas.mArcSweep);
+        runToEnd(view, sweeps);
+
+        String message = "mode " + mode;
+        assertTrue(message, sweeps.size() > 1000 / FRAME_MILLIS / 2);
+        assertEquals(message, from, sweeps.get(0), DELTA);
+        assertEquals(message, to, sweeps.get(sweeps.size() - 1), DELTA);
+        float last = sweeps.get(0);
+        for (float sweep : sweeps) {
+            assertTrue(message, Math.signum(sweep) == 0 || Math.signum(sweep) == Math.signum(from + to));
+            assertTrue(message, Math.abs(sweep - to) <= Math.abs(last - to) + DELTA);
+            last = sweep;
+        }
+        float radius = view.getDrawable().getRadius();
+        assertTrue(radius > 0);
+        assertEquals(-90, mCanvas.mArcStart, DELTA);
+        assertEquals(radius * 2, mCanvas.mArcOval.width(), DELTA);
+        assertEquals(view.getWidth() / 2, mCanvas.mArcOval.centerX(), 1);
+    }
+
+    private CountDownView createView(CountDownStyle style) {
+        CountDownView view = new CountDownView(RuntimeEnvironment.application);
+        if (style != null) {
+            view.setStyle(style);
+        }
+        view.setPadding(PADDING, PADDING, PADDING, PADDING);
+        int spec = View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED);
+        view.measure(spec, spec);
+        view.layout(0, 0, view.getMeasuredWidth(), view.getMeasuredHeight());
+        return view;
+    }
+
+    /**
+     * 推进假时钟直到倒计时结束，每一帧都绘制一次。
+     *
+     * @param sweeps 不为null时记录每一帧进度条的角度。
+     */
+    private void runToEnd(CountDownView view, ArrayList<Float> sweeps) {
+        int maxFrames = 10000;
+        while (view.isStarted() && maxFrames-- > 0) {
+            ShadowLooper.idleMainLooper(FRAME_MILLIS, TimeUnit.MILLISECONDS);
+            render(view);
+            if (sweeps != null) {
+                sweeps.add(mCanvas.mArcSweep);
+            }
+        }
+        assertFalse("the countdown did not finish", view.isStarted());
+    }
+
+    private void render(CountDownView view) {
+        draw(view);
+        assertEquals(1, mCanvas.mArcCount);
+        assertTrue("draw calls: " + mCanvas.mDrawCalls, mCanvas.mDrawCalls <= MAX_DRAW_CALLS_PER_FRAME);
+    }
+
+    /**
+     * 只绘制不校验，校验的消息拼接会创建对象。
+     */
+    private void draw(CountDownView view) {
+        mCanvas.reset();
+        view.onDraw(mCanvas);
+    }
+
+    private CountDownStyle remainingTextStyle() {
+        return new CountDownStyle.Builder(RuntimeEnvironment.application)
+                .setRemainingTextMode(CountDownView.REMAINING_TEXT_SECONDS)
+                .build();
+    }
+
+    /**
+     * 通过假时钟驱动倒计时(逐帧刷新时经过Choreographer，休眠时经过Handler)并逐帧绘制剩余时间文字，
+     * 校验扣除假时钟自身的开销之后，每一帧的刷新和绘制都不会创建对象。
+     *
+     * @param wakeUpMillis 控件在刻度之间休眠时醒来的间隔，0表示逐帧刷新。假时钟的开销用一个同样频率的空任务来测量。
+     */
+    private void assertFramesDoNotAllocate(CountDownView view, final long wakeUpMillis) {
+        int frames = 2000;
+        final Handler handler = new Handler(Looper.getMainLooper());
+        Runnable wakeUpProbe = new Runnable() {
+            @Override
+            public void run() {
+                handler.postDelayed(this, wakeUpMillis);
+            }
+        };
+        CountDownClock.OnFrameListener frameProbe = new CountDownClock.OnFrameListener() {
+            @Override
+            public void onFrame(long now) {
+            }
+        };
+        if (wakeUpMillis > 0) {
+            handler.postDelayed(wakeUpProbe, wakeUpMillis);
+        } else {
+            CountDownClock.getInstance().register(frameProbe);
+        }
+        runFrames(200, null);
+        long overhead = runFrames(frames, null);
+        handler.removeCallbacks(wakeUpProbe);
+        CountDownClock.getInstance().unregister(frameProbe);
+
+        view.start();
+        //预热，让画笔、排版以及JIT都准备好。
+        runFrames(200, view);
+        long allocated = runFrames(frames, view) - overhead;
+        assertTrue("the remaining text was not drawn", mCanvas.mTextCount > 0);
+        assertTrue(view.isStarted());
+        view.cancel();
+        //任何一帧创建对象都会让总量超过帧数，一次性的偶发分配则可以容忍。
+        assertTrue("allocated " + allocated + " bytes in " + frames + " frames", allocated < frames);
+    }
+
+    /**
+     * 推进假时钟指定的帧数，view不为null时每一帧都绘制一次。
+     *
+     * @return 返回这段时间内当前线程分配的字节数。
+     */
+    private long runFrames(int frames, CountDownView view) {
+        allocatedBytes();
+        long start = allocatedBytes();
+        for (int i = 0; i < frames; i++) {
+            ShadowLooper.idleMainLooper(FRAME_MILLIS, TimeUnit.MILLISECONDS);
+            if (view != null) {
+                draw(view);
+            }
+        }
+        return allocatedBytes() - start;
+    }
+
+    private static long allocatedBytes() {
+        com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        return bean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * 绘制到离屏Bitmap上的画布，记录绘制调用的次数以及最后一次绘制的进度条，记录过程不会创建对象。
+     */
+    private static final class RecordingCanvas extends Canvas {
+        int mDrawCalls;
+        int mArcCount;
+        int mTextCount;
+        final RectF mArcOval = new RectF();
+        float mArcStart;
+        float mArcSweep;
+        Paint mArcPaint;
+
+        RecordingCanvas(Bitmap bitmap) {
+            super(bitmap);
+        }
+
+        void reset() {
+            mDrawCalls = 0;
+            mArcCount = 0;
+            mTextCount = 0;
+        }
+
+        @Override
+        public void drawArc(RectF oval, float startAngle, float sweepAngle, boolean useCenter, Paint paint) {
+            mDrawCalls++;
+            mArcCount++;
+            mArcOval.set(oval);
+            mArcStart = startAngle;
+            mArcSweep = sweepAngle;
+            mArcPaint = paint;
+        }
+
+        @Override
+        public void drawCircle(float cx, float cy, float radius, Paint paint) {
+            mDrawCalls++;
+        }
+
+        @Override
+        public void drawBitmap(Bitmap bitmap, float left, float top, Paint paint) {
+            mDrawCalls++;
+        }
+
+        @Override
+        public void drawText(char[] text, int index, int count, float x, float y, Paint paint) {
+            mDrawCalls++;
+            mTextCount++;
+        }
+
+        @Override
+        public void drawText(String text, float x, float y, Paint paint) {
+            mDrawCalls++;
+            mTextCount++;
+        }
+
+        @Override
+        public void drawText(String text, int start, int end, float x, float y, Paint paint) {
+            mDrawCalls++;
+            mTextCount++;
+        }
+
+        @Override
+        public void drawText(CharSequence text, int start, int end, float x, float y, Paint paint) {
+            mDrawCalls++;
+            mTextCount++;
+        }
+
+        @Override
+        public void drawTextRun(char[] text, int index, int count, int contextIndex, int contextCount, float x, float y, boolean isRtl, Paint paint) {
+            mDrawCalls++;
+            mTextCount++;
+        }
+
+        @Override
+        public void drawTextRun(CharSequence text, int start, int end, int contextStart, int contextEnd, float x, float y, boolean isRtl, Paint paint) {
+            mDrawCalls++;
+            mTextCount++;
+        }
+    }
+}
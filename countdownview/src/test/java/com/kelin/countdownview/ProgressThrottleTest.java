@@ -0,0 +1,47 @@
+package com.kelin.countdownview;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * 进度回调节流器的单元测试。
+ */
+public class ProgressThrottleTest {
+
+    private ProgressThrottle mThrottle;
+
+    @Before
+    public void setUp() {
+        mThrottle = new ProgressThrottle();
+    }
+
+    @Test
+    public void unchangedFraction_isCoalesced() {
+        assertTrue(mThrottle.shouldDeliver(0, 0.1F, false));
+        assertFalse(mThrottle.shouldDeliver(16, 0.1F, false));
+        assertFalse(mThrottle.shouldDeliver(32, 0.1F, true));
+        assertTrue(mThrottle.shouldDeliver(48, 0.2F, false));
+    }
+
+    @Test
+    public void minIntervalAndDelta_bothRequired() {
+        mThrottle.set(100, 0.1F);
+        assertTrue(mThrottle.shouldDeliver(0, 0, false));
+        assertFalse(mThrottle.shouldDeliver(99, 0.5F, false));
+        assertFalse(mThrottle.shouldDeliver(200, 0.05F, false));
+        assertTrue(mThrottle.shouldDeliver(200, 0.1F, false));
+        assertTrue(mThrottle.shouldDeliver(201, 1, true));
+    }
+
+    @Test
+    public void millisUntilDue_coversIntervalAndDelta() {
+        mThrottle.set(100, 0.5F);
+        mThrottle.shouldDeliver(0, 0, false);
+        assertEquals(500, mThrottle.getMillisUntilDue(0, 0, 1000));
+        mThrottle.set(1000, 0.1F);
+        assertEquals(900, mThrottle.getMillisUntilDue(100, 0.1F, 1000));
+        assertEquals(1000, mThrottle.getMinWait(1000));
+    }
+}
@@ -0,0 +1,82 @@
+package com.kelin.countdownview;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * 自动调整文字大小的查找以及缓存的单元测试。
+ */
+public class TextFitterTest {
+
+    /**
+     * 模拟等宽字体的排版：每个字的宽度为字体大小的0.6倍，每行的高度为字体大小的1.2倍。
+     */
+    private static final class FakeMeasurer implements TextFitter.Measurer {
+        private final int mLength;
+        private int mCount;
+
+        FakeMeasurer(int length) {
+            mLength = length;
+        }
+
+        @Override
+        public void measure(int textSize, int lineTextLength, int[] outSize) {
+            mCount++;
+            int lines = (mLength + lineTextLength - 1) / lineTextLength;
+            outSize[0] = (int) (textSize * 0.6F * Math.min(lineTextLength, mLength));
+            outSize[1] = (int) (textSize * 1.2F * lines);
+        }
+    }
+
+    private static int radiusOf(FakeMeasurer measurer, int textSize, int lineTextLength, int extra) {
+        int[] size = new int[2];
+        measurer.measure(textSize, lineTextLength, size);
+        return CountDownGeometry.computeRadius(size[0] + extra, size[1] + extra);
+    }
+
+    @Test
+    public void fit_matchesBruteForce() {
+        for (int length = 1; length <= 24; length++) {
+            for (int radius = 10; radius <= 120; radius += 7) {
+                FakeMeasurer measurer = new FakeMeasurer(length);
+                TextFitter.Fit fit = TextFitter.fit(length, radius, 6, 6, 8, 60, measurer);
+                int expected = -1;
+                for (int size = 60; size >= 8 && expected < 0; size--) {
+                    for (int line = 1; line <= length; line++) {
+                        if (radiusOf(measurer, size, line, 6) <= radius) {
+                            expected = size;
+                            break;
+                        }
+                    }
+                }
+                if (expected < 0) {
+                    assertEquals(8, fit.textSize);
+                } else {
+                    assertEquals("length=" + length + " radius=" + radius, expected, fit.textSize);
+                    assertTrue(radiusOf(measurer, fit.textSize, fit.lineTextLength, 6) <= radius);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void fit_neverExceedsMaxTextSize() {
+        TextFitter.Fit fit = TextFitter.fit(2, 1000, 0, 0, 8, 40, new FakeMeasurer(2));
+        assertEquals(40, fit.textSize);
+    }
+
+    @Test
+    public void obtain_cachesPerTextAndRadius() {
+        TextFitter.clear();
+        String text = "Skip the advertisement";
+        FakeMeasurer measurer = new FakeMeasurer(text.length());
+        TextFitter.Fit first = TextFitter.obtain(text, null, 60, 6, 6, 8, 40, measurer);
+        int count = measurer.mCount;
+        assertTrue(count > 0);
+        assertSame(first, TextFitter.obtain(text, null, 60, 6, 6, 8, 40, measurer));
+        assertEquals(count, measurer.mCount);
+        TextFitter.obtain(text, null, 70, 6, 6, 8, 40, measurer);
+        assertTrue(measurer.mCount > count);
+    }
+}
@@ -0,0 +1,84 @@
+package com.kelin.countdownview;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * 分层时间轮的单元测试。
+ */
+public class TimingWheelTest {
+
+    private static final long TICK = 16;
+
+    @Test
+    public void expiresWithinOneTick_neverEarly() {
+        TimingWheel<TimingWheel.Node> wheel = new TimingWheel<>(TICK, 0);
+        TimingWheel.Node node = new TimingWheel.Node();
+        wheel.add(node, 1000);
+        ArrayList<TimingWheel.Node> expired = new ArrayList<>();
+        wheel.advance(999, expired);
+        assertTrue(expired.isEmpty());
+        assertEquals(1008, wheel.getNextWakeUpTime());
+        wheel.advance(1008, expired);
+        assertEquals(1, expired.size());
+        assertEquals(0, wheel.size());
+        assertEquals(Long.MAX_VALUE, wheel.getNextWakeUpTime());
+    }
+
+    @Test
+    public void removedNode_neverExpires() {
+        TimingWheel<TimingWheel.Node> wheel = new TimingWheel<>(TICK, 0);
+        TimingWheel.Node a = new TimingWheel.Node();
+        TimingWheel.Node b = new TimingWheel.Node();
+        wheel.add(a, 5000);
+        wheel.add(b, 5000);
+        assertTrue(wheel.remove(a));
+        assertFalse(wheel.remove(a));
+        ArrayList<TimingWheel.Node> expired = new ArrayList<>();
+        wheel.advance(10000, expired);
+        assertEquals(1, expired.size());
+        assertSame(b, expired.get(0));
+        //已经到期的节点可以重新添加。
+        wheel.add(b, 9000);
+        wheel.advance(10000, expired);
+        assertEquals(2, expired.size());
+    }
+
+    @Test
+    public void randomDeadlines_matchBruteForce() {
+        Random random = new Random(42);
+        long now = 123456;
+        TimingWheel<TimingWheel.Node> wheel = new TimingWheel<>(TICK, now);
+        ArrayList<TimingWheel.Node> nodes = new ArrayList<>();
+        ArrayList<TimingWheel.Node> expired = new ArrayList<>();
+        for (int round = 0; round < 200; round++) {
+            for (int i = 0; i < 50; i++) {
+                TimingWheel.Node node = new TimingWheel.Node();
+                //包括已经过期的、很近的以及超出时间轮范围的截止时间。
+                long offset = random.nextInt(4) == 0 ? (long) (random.nextDouble() * 1_000_000_000_000L) : random.nextInt(100_000) - 1000;
+                wheel.add(node, now + offset);
+                nodes.add(node);
+            }
+            now += random.nextInt(3) == 0 ? random.nextInt(50_000_000) : random.nextInt(5000);
+            expired.clear();
+            wheel.advance(now, expired);
+            long nowTick = now / TICK;
+            for (TimingWheel.Node node : expired) {
+                assertTrue(node.mDeadline <= nowTick * TICK);
+                assertTrue(nodes.remove(node));
+            }
+            for (TimingWheel.Node node : nodes) {
+                assertTrue((node.mDeadline + TICK - 1) / TICK > nowTick);
+            }
+            assertEquals(nodes.size(), wheel.size());
+            long wakeUp = wheel.getNextWakeUpTime();
+            for (TimingWheel.Node node : nodes) {
+                assertTrue(wakeUp <= node.mExpiryTick * TICK);
+            }
+        }
+    }
+}